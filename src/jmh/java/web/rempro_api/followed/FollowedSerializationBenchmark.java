@@ -0,0 +1,72 @@
+package web.rempro_api.followed;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import web.rempro_api.utils.dto.CursorPage;
+import web.rempro_api.utils.dto.FollowedBatchResult;
+import web.rempro_api.utils.dto.FollowedView;
+import web.rempro_api.utils.enums.LevelType;
+
+/**
+ * JSON serialization of Followed lists, with an ObjectMapper configured like
+ * the one Spring MVC uses. Covers the per-item results returned by the batch
+ * write endpoints and the view pages returned by the listings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FollowedSerializationBenchmark {
+
+    @Param({ "1", "50", "200", "5000" })
+    int size;
+
+    private ObjectMapper objectMapper;
+    private List<FollowedBatchResult> batchResults;
+    private CursorPage<FollowedView> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        batchResults = new ArrayList<>(size);
+        List<FollowedView> views = new ArrayList<>(size);
+        Date now = new Date();
+        LevelType[] types = LevelType.values();
+
+        for (int i = 0; i < size; i++) {
+            LevelType type = types[i % types.length];
+            String name = "Followed title number " + i;
+            // One rejection in ten, as a batch with a few invalid items would get
+            batchResults.add(i % 10 == 9
+                    ? FollowedBatchResult.rejected(i, null, "LevelNumber is required.")
+                    : FollowedBatchResult.succeeded(i, (long) i, "CREATED"));
+            views.add(new FollowedView((long) i, name, type, i % 12, i % 24, now, now, 0L, 42L, "bench@mail.com"));
+        }
+        page = new CursorPage<>(views, "MTcyOTE1MjAwMDAwMDo0Mg");
+    }
+
+    @Benchmark
+    public byte[] serializeBatchResults() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(batchResults);
+    }
+
+    @Benchmark
+    public byte[] serializeViewPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,40 @@
+package web.rempro_api.followed;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import web.rempro_api.utils.enums.LevelType;
+import web.rempro_api.utils.exception.CustomAuthException;
+
+/**
+ * Level type parsing, done for every created, updated or searched Followed.
+ * The invalid case includes building the rejected request's exception.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FollowedServiceBenchmark {
+
+    private String valid = "anime";
+    private String invalid = "podcast";
+
+    @Benchmark
+    public LevelType parseLevelType() {
+        return FollowedService.parseLevelType(valid);
+    }
+
+    @Benchmark
+    public Object parseInvalidLevelType() {
+        try {
+            return FollowedService.parseLevelType(invalid);
+        } catch (CustomAuthException ex) {
+            return ex;
+        }
+    }
+}
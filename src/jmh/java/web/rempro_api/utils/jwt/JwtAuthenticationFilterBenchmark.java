@@ -0,0 +1,71 @@
+package web.rempro_api.utils.jwt;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.cache.NullUserCache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import web.rempro_api.users.Users;
+import web.rempro_api.utils.enums.Role;
+
+/**
+ * Per-request cost of authenticating a bearer token, revocation check included,
+ * with a chain that does nothing. With {@code userCheck} the user is loaded on
+ * every request, from a stub here, so this measures the filter and not the
+ * database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({ "false", "true" })
+    boolean userCheck;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private final FilterChain chain = (req, res) -> {
+    };
+
+    @Setup
+    public void setUp() {
+        Users user = Users.builder().id(42L).username("bench@mail.com").password("unused").role(Role.USER).build();
+        JwtService jwtService = new JwtService(new VerifiedTokenCache(10_000), Duration.ofMinutes(15));
+
+        // Nothing revoked: the Bloom filter answers alone, as for almost every request
+        TokenRevocationStore revocations = new TokenRevocationStore(null, null, 100_000, 0.01);
+
+        filter = new JwtAuthenticationFilter(jwtService, revocations, username -> user, new NullUserCache(),
+                userCheck);
+        request = new MockHttpServletRequest("GET", "/followed/user");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + jwtService.getToken(user));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication doFilterInternal() throws ServletException, IOException {
+        try {
+            filter.doFilterInternal(request, response, chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
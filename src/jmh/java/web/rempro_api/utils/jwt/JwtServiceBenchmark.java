@@ -0,0 +1,56 @@
+package web.rempro_api.utils.jwt;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import web.rempro_api.users.Users;
+import web.rempro_api.utils.enums.Role;
+
+/**
+ * Cost of issuing and checking tokens. With {@code verifiedCacheSize = 0}
+ * every call verifies the signature, as the first request of a token does;
+ * otherwise the claims come from the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtServiceBenchmark {
+
+    @Param({ "0", "10000" })
+    long verifiedCacheSize;
+
+    private JwtService jwtService;
+    private Users user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(new VerifiedTokenCache(verifiedCacheSize), Duration.ofMinutes(15));
+        user = Users.builder().id(42L).username("bench@mail.com").password("unused").role(Role.USER).build();
+        token = jwtService.getToken(user);
+    }
+
+    @Benchmark
+    public String getToken() {
+        return jwtService.getToken(user);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return jwtService.getUsernameFromToken(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, user);
+    }
+}
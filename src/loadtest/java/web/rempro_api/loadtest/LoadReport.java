@@ -0,0 +1,84 @@
+package web.rempro_api.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Result of a load-test run, written as JSON. Latencies are in milliseconds
+ * and throughputs in requests per second.
+ *
+ * @param config     - The settings of the run (users, items, clients, mix...).
+ * @param total      - All operations together.
+ * @param operations - Each operation of the mix, by name.
+ */
+record LoadReport(Map<String, Object> config, Stats total, Map<String, Stats> operations) {
+
+    record Stats(long count, long errors, double throughput, double p50, double p95, double p99) {
+
+        static Stats of(long[] latenciesNanos, long errors, Duration duration) {
+            long[] sorted = latenciesNanos.clone();
+            Arrays.sort(sorted);
+            return new Stats(sorted.length, errors, sorted.length / (duration.toMillis() / 1000.0),
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99));
+        }
+
+        double errorRate() {
+            return count + errors == 0 ? 0 : errors / (double) (count + errors);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Lists what regressed past the budgets compared to a baseline: p95 and p99
+     * of each operation, total throughput, and the error rate of the run.
+     *
+     * @param baseline         - The reference run.
+     * @param latencyBudget    - Allowed p95 increase, 0.25 for +25%.
+     * @param tailBudget       - Allowed p99 increase.
+     * @param throughputBudget - Allowed throughput decrease, 0.20 for -20%.
+     * @param maxErrorRate     - Allowed share of failed requests.
+     * @return One message per regression, empty if the run is within budget.
+     */
+    List<String> regressionsAgainst(LoadReport baseline, double latencyBudget, double tailBudget,
+            double throughputBudget, double maxErrorRate) {
+        List<String> regressions = new ArrayList<>();
+
+        if (total.errorRate() > maxErrorRate) {
+            regressions.add(String.format(Locale.ROOT, "error rate %.4f > %.4f", total.errorRate(), maxErrorRate));
+        }
+        double minThroughput = baseline.total().throughput() * (1 - throughputBudget);
+        if (total.throughput() < minThroughput) {
+            regressions.add(String.format(Locale.ROOT, "throughput %.1f req/s < %.1f (baseline %.1f)",
+                    total.throughput(), minThroughput, baseline.total().throughput()));
+        }
+        baseline.operations().forEach((name, reference) -> {
+            Stats current = operations.get(name);
+            if (current == null || current.count() == 0) {
+                return;
+            }
+            checkLatency(regressions, name + " p95", current.p95(), reference.p95(), latencyBudget);
+            checkLatency(regressions, name + " p99", current.p99(), reference.p99(), tailBudget);
+        });
+        return regressions;
+    }
+
+    private static void checkLatency(List<String> regressions, String label, double current, double reference,
+            double budget) {
+        double max = reference * (1 + budget);
+        if (current > max) {
+            regressions.add(String.format(Locale.ROOT, "%s %.1fms > %.1fms (baseline %.1fms)",
+                    label, current, max, reference));
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package web.rempro_api.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ActiveProfilesResolver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import web.rempro_api.followed.Followed;
+import web.rempro_api.followed.FollowedRepository;
+import web.rempro_api.users.Users;
+import web.rempro_api.users.UsersRepository;
+import web.rempro_api.utils.enums.LevelType;
+import web.rempro_api.utils.enums.Role;
+
+/**
+ * Boots the application against an in-memory H2 database in PostgreSQL mode,
+ * seeds it, and drives a weighted mix of login, listing, create, update and
+ * delete requests over HTTP. Throughput and latency percentiles are written to
+ * a JSON report, and the run fails when it regresses past the budgets of
+ * application-loadtest.yml against the stored baseline.
+ *
+ * The baseline holds absolute numbers of the machine that recorded it: the
+ * check is only meaningful on that machine, and is skipped when the settings
+ * of the run differ from those of the baseline. On another machine, record a
+ * baseline there first.
+ *
+ * H2 cannot run the PostgreSQL migrations, so its schema comes from
+ * Hibernate. -Dloadtest.database=postgres runs against PostgreSQL instead
+ * (application-loadtest-postgres.yml), with the schema built by the Flyway
+ * migrations in a throwaway schema wiped before each run.
+ *
+ * Only compiled by the loadtest profile: mvn -Ploadtest test
+ * Settings can be overridden with -Dloadtest.duration=60s and the like, and
+ * -Dloadtest.update-baseline=true stores the run as the new baseline.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles(resolver = LoadTest.DatabaseProfiles.class)
+class LoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final String PASSWORD = "load-test-password";
+    private static final LevelType[] LEVEL_TYPES = LevelType.values();
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    UsersRepository usersRepository;
+    @Autowired
+    FollowedRepository followedRepository;
+    @Autowired
+    PasswordEncoder passwordEncoder;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${loadtest.users}")
+    int users;
+    @Value("${loadtest.items-per-user}")
+    int itemsPerUser;
+    @Value("${loadtest.clients}")
+    int clients;
+    @Value("${loadtest.warmup}")
+    Duration warmup;
+    @Value("${loadtest.duration}")
+    Duration duration;
+    @Autowired
+    Environment environment;
+    @Value("${loadtest.report}")
+    Path reportPath;
+    @Value("${loadtest.baseline}")
+    Path baselinePath;
+    @Value("${loadtest.update-baseline}")
+    boolean updateBaseline;
+    @Value("${loadtest.budget.latency}")
+    double latencyBudget;
+    @Value("${loadtest.budget.tail-latency}")
+    double tailLatencyBudget;
+    @Value("${loadtest.budget.throughput}")
+    double throughputBudget;
+    @Value("${loadtest.budget.max-error-rate}")
+    double maxErrorRate;
+
+    private Map<String, Integer> mix;
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void loadTest() throws Exception {
+        assertTrue(clients <= users, "loadtest.clients must not exceed loadtest.users");
+        mix = Binder.get(environment).bind("loadtest.mix", Bindable.mapOf(String.class, Integer.class)).get();
+        List<List<Long>> itemsByUser = seed();
+
+        run(itemsByUser, warmup);
+        LoadReport report = run(itemsByUser, duration);
+
+        ObjectMapper writer = objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT);
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        writer.writeValue(reportPath.toFile(), report);
+        log.info("Load test report written to {}:\n{}", reportPath, writer.writeValueAsString(report));
+
+        if (updateBaseline) {
+            Files.createDirectories(baselinePath.toAbsolutePath().getParent());
+            writer.writeValue(baselinePath.toFile(), report);
+            return;
+        }
+        assumeTrue(Files.exists(baselinePath),
+                () -> "No baseline at " + baselinePath + ", regression check skipped");
+        LoadReport baseline = objectMapper.readValue(baselinePath.toFile(), LoadReport.class);
+        // The budgets are relative to absolute numbers: other settings give other numbers
+        assumeTrue(toJson(report.config()).equals(toJson(baseline.config())),
+                () -> "Run settings " + report.config() + " differ from those of the baseline " + baseline.config()
+                        + ", regression check skipped");
+        List<String> regressions = report.regressionsAgainst(baseline, latencyBudget, tailLatencyBudget,
+                throughputBudget, maxErrorRate);
+        assertTrue(regressions.isEmpty(), "Load test regressed past its budgets: " + regressions);
+    }
+
+    /**
+     * Creates the users, sharing one password hash, and their Followed items.
+     *
+     * @return The ids of the items of each user, in user order.
+     */
+    private List<List<Long>> seed() {
+        String hash = passwordEncoder.encode(PASSWORD);
+        List<List<Long>> itemsByUser = new ArrayList<>(users);
+
+        for (int u = 0; u < users; u++) {
+            Users user = usersRepository.save(Users.builder().username(username(u)).password(hash).role(Role.USER).build());
+            List<Followed> items = new ArrayList<>(itemsPerUser);
+            for (int i = 0; i < itemsPerUser; i++) {
+                items.add(Followed.builder().name("Seeded " + u + "-" + i).levelType(LEVEL_TYPES[i % LEVEL_TYPES.length])
+                        .levelNumber(i % 10 + 1).episodeNumber(i % 24 + 1).createdBy(user).build());
+            }
+            itemsByUser.add(new ArrayList<>(followedRepository.saveAll(items).stream().map(Followed::getId).toList()));
+        }
+        return itemsByUser;
+    }
+
+    private LoadReport run(List<List<Long>> itemsByUser, Duration runDuration) throws Exception {
+        long deadline = System.nanoTime() + runDuration.toNanos();
+        List<Future<Recorder>> futures = new ArrayList<>(clients);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            for (int c = 0; c < clients; c++) {
+                Client client = new Client(username(c), itemsByUser.get(c));
+                futures.add(executor.submit(() -> client.runUntil(deadline)));
+            }
+            Recorder merged = new Recorder();
+            for (Future<Recorder> future : futures) {
+                merged.addAll(future.get());
+            }
+            return merged.toReport(config(), runDuration);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, Object> config() {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("users", users);
+        config.put("itemsPerUser", itemsPerUser);
+        config.put("clients", clients);
+        config.put("durationSeconds", duration.toSeconds());
+        config.put("mix", mix);
+        return config;
+    }
+
+    // Through JSON text, so that 30 and 30L compare equal
+    private JsonNode toJson(Map<String, Object> config) throws IOException {
+        return objectMapper.readTree(objectMapper.writeValueAsString(config));
+    }
+
+    private static String username(int index) {
+        return "load-user-" + index + "@mail.com";
+    }
+
+    /** One simulated user, replaying the mix on its own items. */
+    private final class Client {
+
+        private final String username;
+        private final List<Long> items;
+        private final Recorder recorder = new Recorder();
+        private String token;
+
+        Client(String username, List<Long> items) {
+            this.username = username;
+            this.items = items;
+        }
+
+        Recorder runUntil(long deadline) {
+            login();
+            int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+            while (System.nanoTime() < deadline) {
+                int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+                for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+                    pick -= entry.getValue();
+                    if (pick < 0) {
+                        perform(entry.getKey());
+                        break;
+                    }
+                }
+            }
+            return recorder;
+        }
+
+        private void perform(String operation) {
+            switch (operation) {
+                case "login" -> login();
+                case "list" -> list();
+                case "create" -> create();
+                case "update" -> {
+                    if (items.isEmpty()) {
+                        create();
+                    } else {
+                        update(randomItem());
+                    }
+                }
+                case "delete" -> {
+                    if (items.isEmpty()) {
+                        create();
+                    } else {
+                        delete(randomItem());
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown load-test operation: " + operation);
+            }
+        }
+
+        private void login() {
+            String body = "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}";
+            HttpResponse<String> response = send("login", request("/auth/login").POST(json(body)), false);
+            if (response != null && response.statusCode() == 200) {
+                // The refresh token comes in a cookie of its own
+                response.headers().allValues("Set-Cookie").stream()
+                        .flatMap(header -> HttpCookie.parse(header).stream())
+                        .filter(cookie -> cookie.getName().equals("token"))
+                        .findFirst()
+                        .ifPresent(cookie -> token = cookie.getValue());
+            }
+        }
+
+        private void list() {
+            HttpResponse<String> response = send("list", request("/followed/user?size=50").GET(), true);
+            if (response == null || response.statusCode() != 200) {
+                return;
+            }
+            try {
+                // Picks up the ids of the items this client created
+                for (JsonNode item : objectMapper.readTree(response.body()).path("items")) {
+                    Long id = item.path("id").asLong();
+                    if (!items.contains(id)) {
+                        items.add(id);
+                    }
+                }
+            } catch (IOException e) {
+                recorder.error("list");
+            }
+        }
+
+        private void create() {
+            send("create", request("/followed").POST(json(followedBody("Created by " + username))), true);
+        }
+
+        private void update(Long id) {
+            send("update", request("/followed/" + id).PUT(json(followedBody("Updated by " + username))), true);
+        }
+
+        private void delete(Long id) {
+            HttpResponse<String> response = send("delete", request("/followed/" + id).DELETE(), true);
+            if (response != null && response.statusCode() == 204) {
+                items.remove(id);
+            }
+        }
+
+        private Long randomItem() {
+            return items.get(ThreadLocalRandom.current().nextInt(items.size()));
+        }
+
+        private String followedBody(String name) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return "{\"name\":\"" + name + "\",\"levelType\":\"" + LEVEL_TYPES[random.nextInt(LEVEL_TYPES.length)]
+                    + "\",\"levelNumber\":" + random.nextInt(1, 20) + ",\"episodeNumber\":" + random.nextInt(1, 50) + "}";
+        }
+
+        private HttpRequest.Builder request(String path) {
+            return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+        }
+
+        private HttpRequest.BodyPublisher json(String body) {
+            return HttpRequest.BodyPublishers.ofString(body);
+        }
+
+        private HttpResponse<String> send(String operation, HttpRequest.Builder builder, boolean authenticated) {
+            builder.header("Content-Type", "application/json");
+            if (authenticated && token != null) {
+                builder.header("Authorization", "Bearer " + token);
+            }
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() >= 400) {
+                    recorder.error(operation);
+                } else {
+                    recorder.record(operation, System.nanoTime() - start);
+                }
+                return response;
+            } catch (IOException e) {
+                recorder.error(operation);
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /** Latencies and errors of each operation, for one client or a whole run. */
+    private static final class Recorder {
+
+        private final Map<String, List<Long>> latencies = new HashMap<>();
+        private final Map<String, Long> errors = new HashMap<>();
+
+        void record(String operation, long nanos) {
+            latencies.computeIfAbsent(operation, key -> new ArrayList<>()).add(nanos);
+        }
+
+        void error(String operation) {
+            errors.merge(operation, 1L, Long::sum);
+        }
+
+        void addAll(Recorder other) {
+            other.latencies.forEach((operation, values) ->
+                    latencies.computeIfAbsent(operation, key -> new ArrayList<>()).addAll(values));
+            other.errors.forEach((operation, count) -> errors.merge(operation, count, Long::sum));
+        }
+
+        LoadReport toReport(Map<String, Object> config, Duration duration) {
+            Map<String, LoadReport.Stats> operations = new LinkedHashMap<>();
+            List<Long> all = new ArrayList<>();
+            long allErrors = 0;
+
+            for (String operation : List.of("login", "list", "create", "update", "delete")) {
+                List<Long> values = latencies.getOrDefault(operation, List.of());
+                long operationErrors = errors.getOrDefault(operation, 0L);
+                operations.put(operation, LoadReport.Stats.of(toArray(values), operationErrors, duration));
+                all.addAll(values);
+                allErrors += operationErrors;
+            }
+            return new LoadReport(config, LoadReport.Stats.of(toArray(all), allErrors, duration), operations);
+        }
+
+        private static long[] toArray(List<Long> values) {
+            return values.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+
+    /** Adds loadtest-postgres to the loadtest profile when -Dloadtest.database=postgres. */
+    static final class DatabaseProfiles implements ActiveProfilesResolver {
+
+        @Override
+        public String[] resolve(Class<?> testClass) {
+            return "postgres".equals(System.getProperty("loadtest.database"))
+                    ? new String[] { "loadtest", "loadtest-postgres" }
+                    : new String[] { "loadtest" };
+        }
+    }
+
+    /** Starts every PostgreSQL run from an empty schema, then migrates it. */
+    @TestConfiguration
+    @Profile("loadtest-postgres")
+    static class CleanSchemaConfig {
+
+        @Bean
+        FlywayMigrationStrategy cleanThenMigrate() {
+            return (Flyway flyway) -> {
+                flyway.clean();
+                flyway.migrate();
+            };
+        }
+    }
+}
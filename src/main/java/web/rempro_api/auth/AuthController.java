@@ -5,6 +5,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,6 +13,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import lombok.RequiredArgsConstructor;
@@ -20,6 +22,8 @@ import web.rempro_api.utils.dto.AuthResponse;
 import web.rempro_api.utils.dto.LoginResquest;
 import web.rempro_api.utils.dto.RegisterRequest;
 import web.rempro_api.utils.exception.CustomAuthException;
+import web.rempro_api.utils.exception.ExceptionMetrics;
+import web.rempro_api.utils.exception.ServiceOverloadedException;
 
 @RequestMapping("/auth")
 @Tag(name = "Auth", description = "API routes for managing authentications")
@@ -33,7 +37,8 @@ public class AuthController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Login successful"),
             @ApiResponse(responseCode = "400", description = "Invalid username or password"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "Too many authentication requests, see Retry-After")
     })
     @PostMapping(value = "login")
     public ResponseEntity<AuthResponse> login(@RequestBody LoginResquest request, HttpServletResponse response) {
@@ -41,7 +46,10 @@ public class AuthController {
             AuthResponse authResponse = authService.login(request, response);
 
             return ResponseEntity.ok(authResponse);
+        } catch (ServiceOverloadedException ex) {
+            return overloaded(ex);
         } catch (CustomAuthException ex) {
+            ExceptionMetrics.count(ex);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
                     AuthResponse.builder().message(ex.getMessage()).build());
         } catch (Exception ex) {
@@ -55,7 +63,8 @@ public class AuthController {
             @ApiResponse(responseCode = "201", description = "User registered successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input data"),
             @ApiResponse(responseCode = "409", description = "Username already exists"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "Too many authentication requests, see Retry-After")
     })
     @PostMapping(value = "register")
     public ResponseEntity<AuthResponse> register(@RequestBody RegisterRequest request, HttpServletResponse response) {
@@ -63,7 +72,10 @@ public class AuthController {
             AuthResponse authResponse = authService.register(request, response);
 
             return ResponseEntity.status(HttpStatus.CREATED).body(authResponse);
+        } catch (ServiceOverloadedException ex) {
+            return overloaded(ex);
         } catch (CustomAuthException ex) {
+            ExceptionMetrics.count(ex);
             return ResponseEntity.status(HttpStatus.CONFLICT).body(
                     AuthResponse.builder().message(ex.getMessage()).build());
         } catch (Exception ex) {
@@ -72,15 +84,37 @@ public class AuthController {
         }
     }
 
+    @Operation(summary = "Refresh", description = "Exchanges the refresh token cookie set by login for a new JWT token and a new refresh token, without the password. A refresh token is valid once: reusing one ends its session.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tokens refreshed"),
+            @ApiResponse(responseCode = "401", description = "Missing, unknown, expired or reused refresh token"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(value = "refresh")
+    public ResponseEntity<AuthResponse> refresh(HttpServletRequest request, HttpServletResponse response) {
+        try {
+            AuthResponse authResponse = authService.refresh(request, response);
+
+            return ResponseEntity.ok(authResponse);
+        } catch (CustomAuthException ex) {
+            ExceptionMetrics.count(ex);
+            return ResponseEntity.status(ex.getStatusCode()).body(
+                    AuthResponse.builder().message(ex.getMessage()).build());
+        } catch (Exception ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    AuthResponse.builder().message("An unexpected error occurred").build());
+        }
+    }
+
     @PostMapping(value = "logout")
-    @Operation(summary = "Logout", description = "Logs out the user by invalidating the JWT token.")
+    @Operation(summary = "Logout", description = "Logs out the user by revoking the JWT token sent in the Authorization header or the cookie, refused until it expires, and the session of the refresh token.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Logout successful"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<String> logOut(HttpServletResponse response) {
+    public ResponseEntity<String> logOut(HttpServletRequest request, HttpServletResponse response) {
         try {
-            authService.logout(response);
+            authService.logout(request, response);
 
             return ResponseEntity.ok("Logout successful");
         } catch (Exception ex) {
@@ -89,4 +123,11 @@ public class AuthController {
         }
     }
 
+    private ResponseEntity<AuthResponse> overloaded(ServiceOverloadedException ex) {
+        ExceptionMetrics.count(ex);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, ex.getRetryAfterHeader())
+                .body(AuthResponse.builder().message(ex.getMessage()).build());
+    }
+
 }
@@ -1,24 +1,37 @@
 package web.rempro_api.auth;
 
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import lombok.RequiredArgsConstructor;
 
 import web.rempro_api.users.Users;
 import web.rempro_api.users.UsersRepository;
+import web.rempro_api.utils.cache.CacheChange;
+import web.rempro_api.utils.cache.CacheInvalidationBus;
+import web.rempro_api.utils.config.CacheConfig;
+import web.rempro_api.utils.datasource.ReplicaRoutingDataSource;
 import web.rempro_api.utils.dto.AuthResponse;
 import web.rempro_api.utils.dto.LoginResquest;
 import web.rempro_api.utils.dto.RegisterRequest;
 import web.rempro_api.utils.enums.Role;
 import web.rempro_api.utils.exception.CustomAuthException;
+import web.rempro_api.utils.exception.ServiceOverloadedException;
 import web.rempro_api.utils.jwt.JwtService;
+import web.rempro_api.utils.jwt.TokenRevocationStore;
 
 /**
  * Service class responsible for handling user authentication and registration
@@ -30,40 +43,52 @@ import web.rempro_api.utils.jwt.JwtService;
 @RequiredArgsConstructor
 public class AuthService {
 
+    private static final String TOKEN_COOKIE = "token";
+    private static final String REFRESH_TOKEN_COOKIE = "refresh_token";
+
     private final UsersRepository userRepository;
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final RefreshTokenService refreshTokenService;
+    private final CacheInvalidationBus cacheBus;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRouting;
 
     /**
      * Authenticates the user and generates a JWT token upon successful login.
-     * The token is then stored in a secure HttpOnly cookie.
+     * The token and a refresh token are then stored in secure HttpOnly cookies.
+     * The user is read once, by the authentication, in a read-only transaction
+     * that a replica can serve; the refresh token is written in a transaction
+     * of its own.
      *
      * @param request  - The login request containing the username and password.
      * @param response - HttpServletResponse to set the token in a cookie.
      * @return AuthResponse - The response containing the generated JWT token.
      * @throws CustomAuthException if the username or password is incorrect.
+     * @throws ServiceOverloadedException if password hashing is saturated.
      */
-    @Transactional(readOnly = true)
     public AuthResponse login(LoginResquest request, HttpServletResponse response) {
+        Users user;
         try {
-            // Authenticate the user
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
+            // Authenticate the user, whose details come with the authentication
+            user = (Users) authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()))
+                    .getPrincipal();
+        } catch (ServiceOverloadedException ex) {
+            // Not a bad credential: the client must retry later
+            throw ex;
         } catch (Exception ex) {
             throw new CustomAuthException("Invalid username or password");
         }
 
-        // Retrieve the user details
-        UserDetails user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new CustomAuthException("User not found"));
-
         // Generate the JWT token
         String token = jwtService.getToken(user);
 
         // Store the token in a secure cookie
-        response.addHeader("Set-Cookie",
-                "token=" + token + "; Path=/; HttpOnly; Secure; SameSite=None; Max-Age=3600");
+        response.addHeader("Set-Cookie", TOKEN_COOKIE + "=" + token
+                + "; Path=/; HttpOnly; Secure; SameSite=None; Max-Age=" + jwtService.getAccessTokenTtl().toSeconds());
+        addRefreshTokenCookie(response, refreshTokenService.issue(user));
 
         // Return the authentication response
         return AuthResponse.builder()
@@ -96,12 +121,17 @@ public class AuthService {
                 .build();
 
         Users savedUser = userRepository.save(newUser);
+        // A login right after, on any node, must not miss the account on a lagging replica
+        replicaRouting.ifAvailable(
+                routing -> routing.markWrittenAfterCommit(CacheConfig.userReadKey(savedUser.getUsername())));
+        cacheBus.publish(new CacheChange(CacheChange.Kind.USER, savedUser.getUsername(), List.of()));
 
         // Generate the JWT token
         String token = jwtService.getToken(savedUser);
 
         // Store the token in a secure cookie
-        response.addHeader("Set-Cookie", "token=" + token + "; Path=/; HttpOnly; Secure; SameSite=Strict");
+        response.addHeader("Set-Cookie", TOKEN_COOKIE + "=" + token + "; Path=/; HttpOnly; Secure; SameSite=Strict");
+        addRefreshTokenCookie(response, refreshTokenService.issue(savedUser));
 
         // Return the authentication response
         return AuthResponse.builder()
@@ -109,6 +139,41 @@ public class AuthService {
                 .build();
     }
 
+    /**
+     * Exchanges the refresh token cookie for a new JWT token and a new refresh
+     * token, without checking the password again.
+     *
+     * @param request  - HttpServletRequest carrying the refresh token cookie.
+     * @param response - HttpServletResponse to set the new tokens in cookies.
+     * @return AuthResponse - The response confirming the refresh.
+     * @throws CustomAuthException 401 if the refresh token is missing, unknown,
+     *                             expired or was already used.
+     */
+    public AuthResponse refresh(HttpServletRequest request, HttpServletResponse response) {
+        String refreshToken = getCookie(request, REFRESH_TOKEN_COOKIE);
+        if (refreshToken == null) {
+            throw new CustomAuthException("Missing refresh token", 401);
+        }
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        String token = jwtService.getToken(rotation.user());
+
+        response.addHeader("Set-Cookie", TOKEN_COOKIE + "=" + token
+                + "; Path=/; HttpOnly; Secure; SameSite=None; Max-Age=" + jwtService.getAccessTokenTtl().toSeconds());
+        addRefreshTokenCookie(response, rotation.refreshToken());
+
+        return AuthResponse.builder()
+                .message("Token refreshed")
+                .build();
+    }
+
+    // Only sent back to /auth, where it is exchanged or revoked
+    private void addRefreshTokenCookie(HttpServletResponse response, String refreshToken) {
+        response.addHeader("Set-Cookie", REFRESH_TOKEN_COOKIE + "=" + refreshToken
+                + "; Path=/auth; HttpOnly; Secure; SameSite=Strict; Max-Age="
+                + refreshTokenService.getTtl().toSeconds());
+    }
+
     /**
      * Validates the registration request to ensure required fields are present and
      * valid.
@@ -126,13 +191,52 @@ public class AuthService {
     }
 
     /**
-     * Logs out the user by invalidating the JWT token stored in the cookie.
+     * Logs out the user by revoking the JWT token sent in the Authorization
+     * header or the cookie until it expires, ending the session of the refresh
+     * token, and clearing both cookies.
      *
+     * @param request  - HttpServletRequest carrying the JWT token.
      * @param response - HttpServletResponse to clear the JWT cookie.
      */
     @Transactional
-    public void logout(HttpServletResponse response) {
+    public void logout(HttpServletRequest request, HttpServletResponse response) {
+        String token = getTokenFromRequest(request);
+        if (token != null) {
+            try {
+                Claims claims = jwtService.verifyToken(token);
+                tokenRevocationStore.revoke(claims.getId(), claims.getExpiration());
+            } catch (JwtException | IllegalArgumentException ex) {
+                // Invalid or expired token: already refused, nothing to revoke
+            }
+        }
+
+        String refreshToken = getCookie(request, REFRESH_TOKEN_COOKIE);
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
+
         // Invalidate the token by setting the cookie's Max-Age to 0
-        response.setHeader("Set-Cookie", "token=; Max-Age=0; Path=/; HttpOnly; Secure; SameSite=Strict");
+        response.setHeader("Set-Cookie", TOKEN_COOKIE + "=; Max-Age=0; Path=/; HttpOnly; Secure; SameSite=Strict");
+        response.addHeader("Set-Cookie",
+                REFRESH_TOKEN_COOKIE + "=; Max-Age=0; Path=/auth; HttpOnly; Secure; SameSite=Strict");
+    }
+
+    private String getTokenFromRequest(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return getCookie(request, TOKEN_COOKIE);
+    }
+
+    private String getCookie(HttpServletRequest request, String name) {
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (name.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
     }
 }
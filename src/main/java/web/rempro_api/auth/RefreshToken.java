@@ -0,0 +1,50 @@
+package web.rempro_api.auth;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import web.rempro_api.users.Users;
+
+/**
+ * Refresh token, known only by its SHA-256 hash. Rotated on each use: a used
+ * token is kept until it expires so that its reuse is detected.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(name = "refresh_token")
+public class RefreshToken {
+
+    @Id
+    @Column(length = 64)
+    private String tokenHash;
+
+    // Every token rotated from the same login
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Users user;
+
+    @Column(nullable = false)
+    private Date expiresAt;
+
+    private Date usedAt;
+}
@@ -0,0 +1,43 @@
+package web.rempro_api.auth;
+
+import java.util.Date;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    // Plain insert: the id is assigned, so save() would first select it to choose between persist and merge
+    @Modifying
+    @Query(value = """
+            INSERT INTO refresh_token (token_hash, family_id, user_id, expires_at)
+            VALUES (:tokenHash, :familyId, :userId, :expiresAt)""", nativeQuery = true)
+    void insert(@Param("tokenHash") String tokenHash, @Param("familyId") String familyId,
+            @Param("userId") Long userId, @Param("expiresAt") Date expiresAt);
+
+    // Locked so that two concurrent uses of a token cannot both rotate it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM RefreshToken t JOIN FETCH t.user WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshToken> findForUpdate(@Param("tokenHash") String tokenHash);
+
+    @Query("SELECT t.familyId FROM RefreshToken t WHERE t.tokenHash = :tokenHash")
+    Optional<String> findFamilyId(@Param("tokenHash") String tokenHash);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.familyId = :familyId")
+    int deleteFamily(@Param("familyId") String familyId);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :before")
+    int deleteExpiredBefore(@Param("before") Date before);
+}
@@ -0,0 +1,159 @@
+package web.rempro_api.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import web.rempro_api.users.Users;
+import web.rempro_api.utils.exception.CustomAuthException;
+
+/**
+ * Issues and rotates the refresh tokens.
+ * <p>
+ * A refresh token is 256 random bits, so a SHA-256 of it is enough to store it:
+ * renewing a session costs one lookup by primary key and no BCrypt. Each token
+ * is valid once and replaced by a successor in the same family. A token used
+ * a second time was copied: its whole family is deleted, which ends the session
+ * for both the client and whoever copied it.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration ttl;
+    private final SecureRandom random = new SecureRandom();
+    private final Counter reuseDetected;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+            @Value("${jwt.refresh-token.ttl:P30D}") Duration ttl,
+            MeterRegistry registry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.ttl = ttl;
+        this.reuseDetected = Counter.builder("rempro.auth.refresh.reuse")
+                .description("Refresh tokens used twice, whose session was ended")
+                .register(registry);
+    }
+
+    /**
+     * Rotated tokens and their successors are valid for this long.
+     *
+     * @return The lifetime of a refresh token.
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Issues the first refresh token of a new session.
+     *
+     * @param user - The logged-in user.
+     * @return The refresh token.
+     */
+    @Transactional
+    public String issue(Users user) {
+        return insert(UUID.randomUUID().toString(), user.getId());
+    }
+
+    /**
+     * Exchanges a refresh token for its successor.
+     *
+     * @param token - The refresh token sent by the client.
+     * @return The successor and the user it belongs to.
+     * @throws CustomAuthException 401 if the token is unknown, expired or was
+     *                             already used, in which case its session is
+     *                             ended.
+     */
+    // The family deleted on reuse must stay deleted even though the call fails
+    @Transactional(noRollbackFor = CustomAuthException.class)
+    public Rotation rotate(String token) {
+        RefreshToken current = refreshTokenRepository.findForUpdate(hash(token))
+                .orElseThrow(() -> new CustomAuthException("Invalid refresh token", 401));
+
+        if (current.getUsedAt() != null) {
+            refreshTokenRepository.deleteFamily(current.getFamilyId());
+            reuseDetected.increment();
+            throw new CustomAuthException("Refresh token already used", 401);
+        }
+
+        Date now = new Date();
+        if (!current.getExpiresAt().after(now)) {
+            throw new CustomAuthException("Refresh token expired", 401);
+        }
+
+        current.setUsedAt(now);
+        String successor = insert(current.getFamilyId(), current.getUser().getId());
+        return new Rotation(successor, current.getUser());
+    }
+
+    /**
+     * Ends the session of a refresh token, at logout. Unknown tokens are
+     * ignored.
+     *
+     * @param token - The refresh token sent by the client.
+     */
+    @Transactional
+    public void revoke(String token) {
+        refreshTokenRepository.findFamilyId(hash(token)).ifPresent(refreshTokenRepository::deleteFamily);
+    }
+
+    /**
+     * Ends every session of a user, when their password changes.
+     *
+     * @param userId - The ID of the user.
+     */
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Deletes the expired refresh tokens, used or not: they can no longer be
+     * exchanged nor reveal a reuse.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.purge-interval:PT1H}", initialDelayString = "PT1M")
+    public void purge() {
+        refreshTokenRepository.deleteExpiredBefore(new Date());
+    }
+
+    private String insert(String familyId, Long userId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.insert(hash(token), familyId, userId,
+                new Date(System.currentTimeMillis() + ttl.toMillis()));
+        return token;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    /**
+     * Result of a rotation.
+     *
+     * @param refreshToken - The successor of the exchanged refresh token.
+     * @param user         - The user the session belongs to.
+     */
+    public record Rotation(String refreshToken, Users user) {
+    }
+}
@@ -0,0 +1,24 @@
+package web.rempro_api.auth;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // Logging out twice with the same token revokes it once
+    @Modifying
+    @Query(value = "INSERT INTO revoked_token (jti, expires_at) VALUES (:jti, :expiresAt) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    void insert(@Param("jti") String jti, @Param("expiresAt") Date expiresAt);
+
+    List<RevokedToken> findByExpiresAtAfter(Date now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt < :before")
+    int deleteExpiredBefore(@Param("before") Date before);
+}
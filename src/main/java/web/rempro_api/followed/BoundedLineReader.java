@@ -0,0 +1,88 @@
+package web.rempro_api.followed;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads lines like {@link java.io.BufferedReader#readLine()}, but never holds
+ * more than a fixed number of characters of one line: a longer line is skipped
+ * up to its end and reported, so that a single huge line of an upload cannot
+ * fill the memory.
+ */
+class BoundedLineReader {
+
+    private final Reader reader;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private boolean skipLf;
+
+    /**
+     * @param reader    - The input.
+     * @param maxLength - The maximum number of characters of a line, line
+     *                  break excluded.
+     */
+    BoundedLineReader(Reader reader, int maxLength) {
+        this.reader = reader;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Reads the next line, without its line break.
+     *
+     * @return The line, or null at the end of the input.
+     * @throws LineTooLongException if the line is longer than the maximum; the
+     *                              next call reads the following line.
+     * @throws IOException          if the input cannot be read.
+     */
+    String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        boolean tooLong = false;
+        int c = read();
+        if (c == '\n' && skipLf) {
+            c = read();
+        }
+        skipLf = false;
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1 && c != '\n' && c != '\r') {
+            if (line.length() < maxLength) {
+                line.append((char) c);
+            } else {
+                tooLong = true;
+            }
+            c = read();
+        }
+        // "\r\n" is one line break: its "\n" is skipped by the next call
+        skipLf = c == '\r';
+        if (tooLong) {
+            throw new LineTooLongException(maxLength);
+        }
+        return line.toString();
+    }
+
+    // Own buffer: no lock per character as with BufferedReader.read()
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    /**
+     * Line longer than the maximum, skipped.
+     */
+    static class LineTooLongException extends IOException {
+
+        LineTooLongException(int maxLength) {
+            super("Line longer than " + maxLength + " characters");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package web.rempro_api.followed;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 reader pulling one record at a time from a reader, so a
+ * whole upload never has to be held in memory. Quoted fields may contain
+ * commas, doubled quotes and line breaks. A record is never held beyond a
+ * maximum length, so an unterminated quote cannot pull the rest of the upload
+ * into memory.
+ */
+class CsvRecordReader {
+
+    private final BoundedLineReader reader;
+    private final int maxRecordLength;
+    private long lineNumber;
+    private long recordLineNumber;
+
+    /**
+     * @param reader          - The input.
+     * @param maxRecordLength - The maximum number of characters of a record,
+     *                        line breaks included.
+     */
+    CsvRecordReader(Reader reader, int maxRecordLength) {
+        this.reader = new BoundedLineReader(reader, maxRecordLength);
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return The fields of the record, or null at the end of the input.
+     * @throws IOException if the input cannot be read, ends inside a quoted
+     *                     field or holds a record longer than the maximum.
+     */
+    List<String> next() throws IOException {
+        recordLineNumber = lineNumber + 1;
+        String line = readLine();
+        if (line == null) {
+            return null;
+        }
+        lineNumber++;
+        long recordLength = line.length();
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // The quoted field goes on over the next line
+                line = readLine();
+                if (line == null) {
+                    throw new IOException("Unterminated quoted field starting at line " + recordLineNumber);
+                }
+                lineNumber++;
+                recordLength += line.length() + 1;
+                if (recordLength > maxRecordLength) {
+                    throw tooLong();
+                }
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private String readLine() throws IOException {
+        try {
+            return reader.readLine();
+        } catch (BoundedLineReader.LineTooLongException ex) {
+            throw tooLong();
+        }
+    }
+
+    private IOException tooLong() {
+        return new IOException("Record starting at line " + recordLineNumber + " is longer than "
+                + maxRecordLength + " characters");
+    }
+
+    /**
+     * @return The line on which the last record read starts.
+     */
+    long recordLineNumber() {
+        return recordLineNumber;
+    }
+}
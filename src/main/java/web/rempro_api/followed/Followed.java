@@ -6,7 +6,9 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import web.rempro_api.users.Users;
 import web.rempro_api.utils.enums.LevelType;
 
@@ -18,8 +20,10 @@ import web.rempro_api.utils.enums.LevelType;
 @Table(name = "followed")
 public class Followed {
 
+    // Pooled sequence rather than IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "followed_seq")
+    @SequenceGenerator(name = "followed_seq", sequenceName = "followed_seq", allocationSize = 50)
     private Long id;
 
     @Column
@@ -29,10 +33,14 @@ public class Followed {
     private LevelType levelType;
 
     @Column
-    private Number levelNumber;
+    private Integer levelNumber;
 
     @Column
-    private Number episodeNumber;
+    private Integer episodeNumber;
+
+    // Optimistic locking: an update based on a stale read fails instead of overwriting
+    @Version
+    private Long version;
 
     @Column
     private Date updatedAt;
@@ -41,8 +49,11 @@ public class Followed {
     private Date createdAt;
 
     // Update to match the database column name
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Lazy: reads go through FollowedView projections, which join the owner only when needed
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Users createdBy;
 
     @PrePersist
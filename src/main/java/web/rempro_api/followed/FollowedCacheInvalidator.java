@@ -0,0 +1,223 @@
+package web.rempro_api.followed;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.RequiredArgsConstructor;
+import web.rempro_api.utils.cache.CacheChange;
+import web.rempro_api.utils.cache.CacheInvalidationBus;
+import web.rempro_api.utils.cache.CacheInvalidationListener;
+import web.rempro_api.utils.datasource.ReplicaRoutingDataSource;
+
+/**
+ * Keeps the Followed read caches consistent with the write paths.
+ * <p>
+ * Every entry is keyed by a version read before the load: per entity for
+ * the views, per owner for a user's listing, and one for the whole listing.
+ * Writes bump the versions after the surrounding transaction commits, which
+ * makes the affected entries unreachable at once without scanning the cache.
+ * A read that loaded the pre-commit state stores it under the old version,
+ * where no later read looks, even if it lands after the eviction. With a
+ * replica, each eviction also marks the entity, the owner and the whole
+ * listing as written, and the loads read them with
+ * {@link ReplicaRoutingDataSource#readFresh}: from the replica only once it
+ * replayed the write. The other nodes get the same invalidations through the
+ * {@link CacheInvalidationBus}; as they cannot update their search index in
+ * place, they drop the owner's one.
+ */
+@Component
+@RequiredArgsConstructor
+public class FollowedCacheInvalidator implements CacheInvalidationListener {
+
+    static final String BY_ID_CACHE = "followedByIdCache";
+    static final String ALL_CACHE = "allFollowedCache";
+    static final String BY_USER_CACHE = "followedByUserCache";
+    // Keys of the fresh reads of the replica routing
+    static final String ALL_READ_KEY = "followed-all";
+
+    private static final int MAX_TRACKED_OWNERS = 100_000;
+    private static final int MAX_TRACKED_ENTITIES = 100_000;
+
+    private final CacheManager cacheManager;
+    private final FollowedSearchIndex searchIndex;
+    private final CacheInvalidationBus bus;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRouting;
+
+    // Seeded from the clock so versions are not reused across restarts
+    private final AtomicLong versionSequence = new AtomicLong(System.currentTimeMillis() << 16);
+    private final Cache<String, Long> ownerVersions = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_OWNERS)
+            .build();
+    private final Cache<Long, Long> entityVersions = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_ENTITIES)
+            .build();
+    private volatile long allVersion = versionSequence.incrementAndGet();
+
+    static String entityReadKey(Long id) {
+        return "followed:" + id;
+    }
+
+    static String ownerReadKey(String owner) {
+        return "followed-owner:" + owner;
+    }
+
+    /**
+     * Returns the current listing version of an owner. An owner that is not
+     * tracked yet, or no longer, gets a version never handed out before.
+     *
+     * @param username - The owner of the Followed entities.
+     * @return The current version of the owner's listing.
+     */
+    public long ownerVersion(String username) {
+        return ownerVersions.get(username, key -> versionSequence.incrementAndGet());
+    }
+
+    /**
+     * Returns the key of the cached view of a Followed entity, at its current
+     * version.
+     *
+     * @param id - The ID of the Followed entity.
+     * @return The cache key.
+     */
+    public String byIdKey(Long id) {
+        return id + ":" + entityVersions.get(id, key -> versionSequence.incrementAndGet());
+    }
+
+    /**
+     * Returns the key of a cached page of all the Followed entities, at the
+     * current version of the whole listing.
+     *
+     * @param cursor - The cursor of the page, or null for the first page.
+     * @param size   - The requested page size.
+     * @return The cache key.
+     */
+    public String allKey(String cursor, Integer size) {
+        return allVersion + ":" + cursor + ":" + size;
+    }
+
+    /**
+     * Invalidates the cached reads affected by a write on a Followed entity.
+     *
+     * @param id    - The ID of the written Followed entity.
+     * @param owner - The username of the owner of the Followed entity.
+     */
+    public void evict(Long id, String owner) {
+        evict(List.of(id), owner);
+    }
+
+    /**
+     * Invalidates the cached reads affected by writes on several Followed
+     * entities of the same owner.
+     *
+     * @param ids   - The IDs of the written Followed entities.
+     * @param owner - The username of the owner of the Followed entities.
+     */
+    public void evict(Collection<Long> ids, String owner) {
+        afterCommit(() -> evictLocally(ids, owner));
+        bus.publish(new CacheChange(CacheChange.Kind.FOLLOWED, owner, List.copyOf(ids)));
+    }
+
+    /**
+     * Makes the cached listings of an owner unreachable on this node without
+     * evicting anything else, for changes not written yet but overlaid on the
+     * reads. Nothing is published: the other nodes do not see the changes
+     * before they are written, and the write evicts them there.
+     *
+     * @param owner - The username of the owner of the Followed entities.
+     */
+    public void touch(String owner) {
+        afterCommit(() -> ownerVersions.put(owner, versionSequence.incrementAndGet()));
+    }
+
+    /**
+     * Makes the cached listings and statistics tags of an owner unreachable on
+     * every node without evicting anything else, for written changes that do
+     * not go through {@link #evict(Collection, String)}.
+     *
+     * @param owner - The username of the owner of the Followed entities.
+     */
+    public void evictOwner(String owner) {
+        touch(owner);
+        afterCommit(() -> replicaRouting.ifAvailable(routing -> routing.markWritten(ownerReadKey(owner))));
+        bus.publish(new CacheChange(CacheChange.Kind.OWNER, owner, List.of()));
+    }
+
+    @Override
+    public void onRemoteChange(CacheChange change) {
+        switch (change.kind()) {
+            case FOLLOWED -> {
+                evictLocally(change.ids(), change.subject());
+                searchIndex.invalidate(change.subject());
+            }
+            case OWNER -> {
+                replicaRouting.ifAvailable(routing -> routing.markWritten(ownerReadKey(change.subject())));
+                ownerVersions.put(change.subject(), versionSequence.incrementAndGet());
+            }
+            case USER, TOKEN -> {
+                // The Followed caches hold nothing about the user but its username
+            }
+        }
+    }
+
+    @Override
+    public void onGap() {
+        // Everything gets new versions on its next read: every cached entry and ETag is dropped
+        replicaRouting.ifAvailable(ReplicaRoutingDataSource::markAllWritten);
+        ownerVersions.invalidateAll();
+        entityVersions.invalidateAll();
+        allVersion = versionSequence.incrementAndGet();
+        for (String name : List.of(BY_ID_CACHE, ALL_CACHE, BY_USER_CACHE)) {
+            var cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        searchIndex.invalidateAll();
+    }
+
+    private void evictLocally(Collection<Long> ids, String owner) {
+        // Before the new versions: a load under them must not read the replica before the write
+        replicaRouting.ifAvailable(routing -> {
+            ids.forEach(id -> routing.markWritten(entityReadKey(id)));
+            routing.markWritten(ownerReadKey(owner));
+            routing.markWritten(ALL_READ_KEY);
+        });
+        var byId = cacheManager.getCache(BY_ID_CACHE);
+        for (Long id : ids) {
+            Long previous = entityVersions.asMap().put(id, versionSequence.incrementAndGet());
+            // Unreachable already: only frees the entry before it expires
+            if (byId != null && previous != null) {
+                byId.evict(id + ":" + previous);
+            }
+        }
+        ownerVersions.put(owner, versionSequence.incrementAndGet());
+        allVersion = versionSequence.incrementAndGet();
+        var all = cacheManager.getCache(ALL_CACHE);
+        if (all != null) {
+            all.clear();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
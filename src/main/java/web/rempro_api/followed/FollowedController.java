@@ -1,17 +1,35 @@
 package web.rempro_api.followed;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import web.rempro_api.utils.dto.CursorPage;
+import web.rempro_api.utils.dto.FollowedBatchResult;
+import web.rempro_api.utils.dto.FollowedChanges;
+import web.rempro_api.utils.dto.FollowedImportSummary;
+import web.rempro_api.utils.dto.FollowedProgressRequest;
 import web.rempro_api.utils.dto.FollowedRequest;
+import web.rempro_api.utils.dto.FollowedSearchResult;
+import web.rempro_api.utils.dto.FollowedStatsSummary;
+import web.rempro_api.utils.dto.FollowedView;
+import web.rempro_api.utils.enums.DataFormat;
 import web.rempro_api.utils.exception.CustomAuthException;
+import web.rempro_api.utils.exception.ExceptionMetrics;
 
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
 import java.security.Principal;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +41,18 @@ import java.util.Map;
 public class FollowedController {
 
     private final FollowedService followedService;
+    private final FollowedExportService followedExportService;
+    private final FollowedImportService followedImportService;
+    private final FollowedSyncService followedSyncService;
+    private final FollowedStatsService followedStatsService;
+    private final FollowedProgressBuffer progressBuffer;
+
+    /**
+     * Lets clients keep a private copy but makes them revalidate it with its ETag
+     * on every use. Setting it explicitly also replaces the no-store default of
+     * Spring Security, which would forbid keeping the copy at all.
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
 
     @Operation(summary = "Create Followed", description = "Creates a new Followed item.")
     @ApiResponses(value = {
@@ -38,47 +68,123 @@ public class FollowedController {
         return ResponseEntity.ok(Map.of("message", "Followed created successfully"));
     }
 
-    @Operation(summary = "Get Followed by ID", description = "Retrieves a Followed item by its ID.")
+    @Operation(summary = "Create Followed in batch", description = "Creates up to 5000 Followed items in one transaction and returns the result of each item.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see the result of each item"),
+            @ApiResponse(responseCode = "400", description = "Empty or too large batch"),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<List<FollowedBatchResult>> createFollowedBatch(
+            @RequestBody List<FollowedRequest> requests,
+            @AuthenticationPrincipal String username) {
+        try {
+            return ResponseEntity.ok(followedService.createFollowedBatch(requests, username));
+        } catch (CustomAuthException ex) {
+            ExceptionMetrics.count(ex);
+            return ResponseEntity.status(ex.getStatusCode()).body(null);
+        }
+    }
+
+    @Operation(summary = "Update Followed in batch", description = "Updates up to 5000 Followed items of the logged-in user, identified by the `id` of each item, in one transaction and returns the result of each item.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see the result of each item"),
+            @ApiResponse(responseCode = "400", description = "Empty or too large batch"),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PutMapping("/batch")
+    public ResponseEntity<List<FollowedBatchResult>> updateFollowedBatch(
+            @RequestBody List<FollowedRequest> requests,
+            @AuthenticationPrincipal String username) {
+        try {
+            return ResponseEntity.ok(followedService.updateFollowedBatch(requests, username));
+        } catch (CustomAuthException ex) {
+            ExceptionMetrics.count(ex);
+            return ResponseEntity.status(ex.getStatusCode()).body(null);
+        }
+    }
+
+    @Operation(summary = "Get Followed by ID", description = "Retrieves a Followed item by its ID. Send the returned ETag in `If-None-Match` to get a 304 when it has not changed.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Followed found"),
+            @ApiResponse(responseCode = "304", description = "Followed not modified since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Followed not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Followed> getFollowedById(@PathVariable Long id) {
+    public ResponseEntity<FollowedView> getFollowedById(@PathVariable Long id, WebRequest webRequest) {
         try {
-            Followed followed = followedService.getFollowedById(id);
-            return ResponseEntity.ok(followed);
+            // Served from the by-id cache when warm: a match is answered without touching the database
+            FollowedView followed = progressBuffer.read(() -> followedService.getFollowedById(id));
+            String eTag = FollowedService.eTagOf(followed);
+            if (webRequest.checkNotModified(eTag)) {
+                return notModified();
+            }
+            return ResponseEntity.ok().eTag(eTag).cacheControl(REVALIDATE).body(followed);
         } catch (CustomAuthException ex) {
+            ExceptionMetrics.count(ex);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         }
     }
 
-    @Operation(summary = "Get All Followed", description = "Retrieves all Followed items.")
+    @Operation(summary = "Get All Followed", description = "Retrieves one page of all Followed items, most recently updated first. Pass the returned `next` cursor to get the following page.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "List of Followed items"),
+            @ApiResponse(responseCode = "200", description = "Page of Followed items"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping
-    public ResponseEntity<List<Followed>> getAllFollowed() {
-        List<Followed> followedList = followedService.getAllFollowed();
-        return ResponseEntity.ok(followedList);
+    public ResponseEntity<CursorPage<FollowedView>> getAllFollowed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<FollowedView> followedPage = progressBuffer.readPage(() -> followedService.getAllFollowed(cursor, size));
+        return ResponseEntity.ok(followedPage);
     }
 
-    @Operation(summary = "Update Followed", description = "Updates an existing Followed item.")
+    @Operation(summary = "Update Followed", description = "Updates an existing Followed item. Send the `version` last read to refuse overwriting a newer update.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Followed updated successfully"),
             @ApiResponse(responseCode = "404", description = "Followed not found"),
             @ApiResponse(responseCode = "400", description = "Invalid input data"),
+            @ApiResponse(responseCode = "409", description = "Followed modified since the given version or during the update"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PutMapping("/{id}")
-    public ResponseEntity<Followed> updateFollowed(@PathVariable Long id, @RequestBody FollowedRequest request) {
+    public ResponseEntity<FollowedView> updateFollowed(@PathVariable Long id, @RequestBody FollowedRequest request) {
         try {
             var updatedFollowed = followedService.updateFollowed(id, request);
             return ResponseEntity.ok(updatedFollowed);
         } catch (CustomAuthException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            ExceptionMetrics.count(ex);
+            return ResponseEntity.status(ex.getStatusCode()).body(null);
+        }
+    }
+
+    @Operation(summary = "Update Followed progress", description = "Sets (`levelNumber`, `episodeNumber`) or increments (`levelIncrement`, `episodeIncrement`) the progress of a Followed item of the logged-in user in a single statement, so concurrent updates from several devices all apply. `{\"episodeIncrement\": 1}` moves to the next episode.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Progress updated"),
+            @ApiResponse(responseCode = "400", description = "Nothing to update, or a number both set and incremented"),
+            @ApiResponse(responseCode = "404", description = "Followed not found for the user"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PatchMapping("/{id}/progress")
+    public ResponseEntity<FollowedView> updateFollowedProgress(@PathVariable Long id,
+            @RequestBody FollowedProgressRequest request,
+            Principal principal) {
+        try {
+            var username = principal.getName();
+            var progress = FollowedProgress.of(request);
+            // Write-behind when enabled: merged with the pending updates, written by the next flush
+            var updated = progressBuffer.offer(id, username, progress, () -> followedService.getFollowedById(id));
+            if (updated == null) {
+                updated = followedService.updateFollowedProgress(id, progress, username);
+            }
+            return ResponseEntity.ok(updated);
+        } catch (CustomAuthException ex) {
+            ExceptionMetrics.count(ex);
+            return ResponseEntity.status(ex.getStatusCode()).body(null);
         }
     }
 
@@ -94,24 +200,159 @@ public class FollowedController {
             followedService.deleteFollowed(id);
             return ResponseEntity.noContent().build();
         } catch (CustomAuthException ex) {
+            ExceptionMetrics.count(ex);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         }
     }
 
-    @Operation(summary = "Get All Followed by User", description = "Retrieves all Followed items created by the logged-in user.")
+    @Operation(summary = "Get All Followed by User", description = "Retrieves one page of the Followed items created by the logged-in user, most recently updated first. Pass the returned `next` cursor to get the following page, and the returned ETag in `If-None-Match` to get a 304 when the page has not changed.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "List of Followed items created by the user"),
+            @ApiResponse(responseCode = "200", description = "Page of Followed items created by the user"),
+            @ApiResponse(responseCode = "304", description = "Page not modified since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
             @ApiResponse(responseCode = "404", description = "User not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/user")
-    public ResponseEntity<List<Followed>> getAllFollowedByUser(Principal principal) {
+    public ResponseEntity<CursorPage<FollowedView>> getAllFollowedByUser(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Principal principal,
+            WebRequest webRequest) {
         try {
             var username = principal.getName();
-            var followedList = followedService.getAllFollowedByUser(username);
-            return ResponseEntity.ok(followedList);
+            // The tag only depends on the listing version: nothing is loaded when the client is up to date
+            var eTag = followedService.getFollowedByUserETag(username, cursor, size);
+            if (webRequest.checkNotModified(eTag)) {
+                return notModified();
+            }
+            var followedPage = progressBuffer
+                    .readPage(() -> followedService.getAllFollowedByUser(username, cursor, size));
+            return ResponseEntity.ok().eTag(eTag).cacheControl(REVALIDATE).body(followedPage);
         } catch (CustomAuthException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            ExceptionMetrics.count(ex);
+            return ResponseEntity.status(ex.getStatusCode()).body(null);
         }
     }
+
+    @Operation(summary = "Get Followed changes by User", description = "Retrieves the Followed items of the logged-in user created or updated since a watermark, and the IDs of those deleted. Call it without `since` to get a first watermark, then send back the returned `watermark` each time; call again right away while `hasMore` is set, and reload the whole list when `fullResync` is set.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changes since the watermark and the next watermark"),
+            @ApiResponse(responseCode = "400", description = "Invalid watermark"),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/user/changes")
+    public ResponseEntity<FollowedChanges> getFollowedChangesByUser(
+            @RequestParam(required = false) String since,
+            Principal principal) {
+        try {
+            return ResponseEntity.ok(followedSyncService.getChanges(principal.getName(), since));
+        } catch (CustomAuthException ex) {
+            ExceptionMetrics.count(ex);
+            return ResponseEntity.status(ex.getStatusCode()).body(null);
+        }
+    }
+
+    @Operation(summary = "Get Followed stats by User", description = "Retrieves the number of Followed items of the logged-in user per level type and in total, the sum of their episode numbers and the most recently updated items. Served from a per-user aggregate; send back the ETag in `If-None-Match` to get a `304` while nothing changed.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics of the user's Followed items"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match"),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/user/stats")
+    public ResponseEntity<FollowedStatsSummary> getFollowedStatsByUser(
+            Principal principal,
+            WebRequest webRequest) {
+        try {
+            var username = principal.getName();
+            var eTag = followedStatsService.getStatsETag(username);
+            if (webRequest.checkNotModified(eTag)) {
+                return notModified();
+            }
+            var stats = followedStatsService.getStats(username);
+            return ResponseEntity.ok().eTag(eTag).cacheControl(REVALIDATE).body(stats);
+        } catch (CustomAuthException ex) {
+            ExceptionMetrics.count(ex);
+            return ResponseEntity.status(ex.getStatusCode()).body(null);
+        }
+    }
+
+    @Operation(summary = "Search Followed by User", description = "Searches the Followed items of the logged-in user by name: prefix matches first, then typo-tolerant matches. Meant for autocomplete.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching Followed items, best matches first"),
+            @ApiResponse(responseCode = "400", description = "Missing query, invalid level type or limit"),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<List<FollowedSearchResult>> searchFollowed(
+            @RequestParam String q,
+            @RequestParam(required = false) String levelType,
+            @RequestParam(required = false) Integer limit,
+            Principal principal) {
+        try {
+            return ResponseEntity.ok(followedService.searchFollowed(principal.getName(), q, levelType, limit));
+        } catch (CustomAuthException ex) {
+            ExceptionMetrics.count(ex);
+            return ResponseEntity.status(ex.getStatusCode()).body(null);
+        }
+    }
+
+    @Operation(summary = "Export Followed by User", description = "Streams all Followed items created by the logged-in user as NDJSON (default) or CSV.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export of the Followed items created by the user"),
+            @ApiResponse(responseCode = "400", description = "Invalid export format"),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/user/export")
+    public ResponseEntity<StreamingResponseBody> exportFollowedByUser(
+            @RequestParam(required = false) String format,
+            Principal principal) {
+        try {
+            DataFormat exportFormat = followedExportService.parseFormat(format);
+            StreamingResponseBody body = followedExportService.exportFollowedByUser(principal.getName(), exportFormat);
+            boolean csv = exportFormat == DataFormat.CSV;
+            return ResponseEntity.ok()
+                    .contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"followed." + (csv ? "csv" : "ndjson") + "\"")
+                    .body(body);
+        } catch (CustomAuthException ex) {
+            ExceptionMetrics.count(ex);
+            return ResponseEntity.status(ex.getStatusCode()).build();
+        }
+    }
+
+    @Operation(summary = "Import Followed", description = "Imports Followed items for the logged-in user from an NDJSON or CSV body (CSV needs a header with name, levelType, levelNumber and episodeNumber). The format comes from the `format` parameter or else from the content type. Records are written in batches; invalid records are reported by line number.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import summary with accepted and rejected records"),
+            @ApiResponse(responseCode = "400", description = "Invalid format or unreadable body"),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/import")
+    public ResponseEntity<FollowedImportSummary> importFollowed(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request,
+            Principal principal) throws IOException {
+        try {
+            DataFormat importFormat = followedImportService.resolveFormat(format, request.getContentType());
+            return ResponseEntity.ok(
+                    followedImportService.importFollowed(request.getInputStream(), importFormat, principal.getName()));
+        } catch (CustomAuthException ex) {
+            ExceptionMetrics.count(ex);
+            return ResponseEntity.status(ex.getStatusCode()).body(null);
+        }
+    }
+
+    /**
+     * Ends a conditional GET whose ETag matched: {@link WebRequest#checkNotModified}
+     * has already set the 304 status and the ETag header.
+     */
+    private static <T> ResponseEntity<T> notModified() {
+        return null;
+    }
 }
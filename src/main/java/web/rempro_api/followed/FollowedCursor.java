@@ -0,0 +1,53 @@
+package web.rempro_api.followed;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import web.rempro_api.utils.dto.FollowedView;
+import web.rempro_api.utils.exception.CustomAuthException;
+
+/**
+ * Opaque keyset cursor over the (updatedAt, id) sort of Followed listings.
+ * The encoded form is URL-safe Base64 so clients can pass it back untouched.
+ */
+record FollowedCursor(Date updatedAt, Long id) {
+
+    /**
+     * Builds the cursor pointing right after the given Followed view.
+     *
+     * @param followed - The last Followed view of the current page.
+     * @return The cursor for the next page.
+     */
+    static FollowedCursor after(FollowedView followed) {
+        return new FollowedCursor(followed.getUpdatedAt(), followed.getId());
+    }
+
+    /**
+     * Encodes the cursor into its opaque string form.
+     *
+     * @return The URL-safe representation of the cursor.
+     */
+    String encode() {
+        String raw = updatedAt.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned by {@link #encode()}.
+     *
+     * @param cursor - The opaque cursor sent by the client.
+     * @return The decoded cursor.
+     * @throws CustomAuthException if the cursor is malformed.
+     */
+    static FollowedCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new FollowedCursor(new Date(Long.parseLong(raw.substring(0, separator))),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new CustomAuthException("Invalid cursor: " + cursor, 400);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package web.rempro_api.followed;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.RequiredArgsConstructor;
+import web.rempro_api.users.Users;
+import web.rempro_api.users.UsersRepository;
+import web.rempro_api.utils.dto.FollowedView;
+import web.rempro_api.utils.enums.DataFormat;
+import web.rempro_api.utils.exception.CustomAuthException;
+import web.rempro_api.utils.exception.ExceptionAuthUtil;
+
+/**
+ * Service class exporting the Followed entities of a user.
+ * Rows are streamed from the database straight to the response, so an export
+ * uses the same memory whatever the size of the user's list.
+ */
+@Service
+@RequiredArgsConstructor
+public class FollowedExportService {
+
+    private static final String CSV_HEADER = "id,name,levelType,levelNumber,episodeNumber,createdAt,updatedAt";
+
+    private final FollowedRepository followedRepository;
+    private final UsersRepository usersRepository;
+    private final ExceptionAuthUtil exceptionUtil;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Parses the requested export format.
+     * 
+     * @param format - The format name, case insensitive; ndjson when null.
+     * @return The corresponding DataFormat enum.
+     * @throws CustomAuthException if the format is not supported.
+     */
+    public DataFormat parseFormat(String format) {
+        if (format == null) {
+            return DataFormat.NDJSON;
+        }
+        try {
+            return DataFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new CustomAuthException("Invalid export format: " + format, 400);
+        }
+    }
+
+    /**
+     * Prepares the export of all Followed entities created by a user. The user
+     * is resolved right away so a missing user fails before the response starts.
+     * 
+     * @param username - The username of the user whose Followed entities are
+     *                 exported.
+     * @param format   - The format of the export.
+     * @return The body writing the export to the response.
+     * @throws CustomAuthException if the user is not found.
+     */
+    public StreamingResponseBody exportFollowedByUser(String username, DataFormat format) {
+        Users user = usersRepository.findByUsername(username)
+                .orElseThrow(() -> exceptionUtil.createNotFoundException("User", username));
+
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        // The stream needs an open transaction (and connection) for as long as rows are written
+        return outputStream -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<FollowedView> rows = followedRepository.streamViewsByCreatedBy(user);
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+                if (format == DataFormat.CSV) {
+                    writeCsv(rows, writer);
+                } else {
+                    writeNdjson(rows, writer);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private void writeNdjson(Stream<FollowedView> rows, Writer writer) throws IOException {
+        // A single generator, flushed by the buffered writer rather than after each row
+        ObjectWriter rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            generator.setRootValueSeparator(null);
+            for (FollowedView row : (Iterable<FollowedView>) rows::iterator) {
+                rowWriter.writeValue(generator, row);
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private void writeCsv(Stream<FollowedView> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        for (FollowedView row : (Iterable<FollowedView>) rows::iterator) {
+            writer.write(String.valueOf(row.getId()));
+            writer.write(',');
+            writer.write(escapeCsv(row.getName()));
+            writer.write(',');
+            writer.write(row.getLevelType() != null ? row.getLevelType().name() : "");
+            writer.write(',');
+            writer.write(row.getLevelNumber() != null ? row.getLevelNumber().toString() : "");
+            writer.write(',');
+            writer.write(row.getEpisodeNumber() != null ? row.getEpisodeNumber().toString() : "");
+            writer.write(',');
+            writer.write(formatDate(row.getCreatedAt()));
+            writer.write(',');
+            writer.write(formatDate(row.getUpdatedAt()));
+            writer.write('\n');
+        }
+    }
+
+    private static String formatDate(Date date) {
+        return date != null ? date.toInstant().toString() : "";
+    }
+
+    private static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
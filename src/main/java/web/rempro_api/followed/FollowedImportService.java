@@ -0,0 +1,270 @@
+package web.rempro_api.followed;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import web.rempro_api.users.Users;
+import web.rempro_api.users.UsersRepository;
+import web.rempro_api.utils.dto.FollowedImportSummary;
+import web.rempro_api.utils.dto.FollowedRequest;
+import web.rempro_api.utils.enums.DataFormat;
+import web.rempro_api.utils.exception.CustomAuthException;
+import web.rempro_api.utils.exception.ExceptionAuthUtil;
+
+/**
+ * Service class importing Followed entities from NDJSON or CSV uploads.
+ * Records are parsed one at a time and written in fixed-size batches, each in
+ * its own transaction, so memory stays flat whatever the size of the upload.
+ * Records longer than {@value #MAX_RECORD_LENGTH} characters are refused
+ * without being held in memory.
+ */
+@Service
+@RequiredArgsConstructor
+public class FollowedImportService {
+
+    static final int IMPORT_BATCH_SIZE = 500;
+    static final int MAX_REPORTED_REJECTIONS = 1000;
+    // Far above any valid record, low enough that one line cannot exhaust the memory
+    static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private final FollowedService followedService;
+    private final FollowedRepository followedRepository;
+    private final UsersRepository usersRepository;
+    private final FollowedCacheInvalidator cacheInvalidator;
+    private final FollowedSearchIndex searchIndex;
+    private final FollowedStatsService statsService;
+    private final ExceptionAuthUtil exceptionUtil;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Resolves the format of an upload from the explicit format parameter, or
+     * else from its content type.
+     * 
+     * @param format      - The format name, case insensitive, may be null.
+     * @param contentType - The content type of the upload, may be null.
+     * @return The format of the upload; NDJSON unless it is CSV.
+     * @throws CustomAuthException if the format name is not supported.
+     */
+    public DataFormat resolveFormat(String format, String contentType) {
+        if (format != null) {
+            try {
+                return DataFormat.valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new CustomAuthException("Invalid import format: " + format, 400);
+            }
+        }
+        return contentType != null && contentType.startsWith("text/csv") ? DataFormat.CSV : DataFormat.NDJSON;
+    }
+
+    /**
+     * Imports the Followed entities of an upload for a user. Each record goes
+     * through the same checks as a single creation; invalid records are
+     * reported by line number and do not stop the import.
+     * 
+     * @param input    - The uploaded body.
+     * @param format   - The format of the upload.
+     * @param username - The username of the user importing the Followed
+     *                 entities.
+     * @return The number of accepted and rejected records, with the first
+     *         rejected line numbers.
+     * @throws CustomAuthException if the user is not found or a CSV upload lacks
+     *                             a required column.
+     */
+    public FollowedImportSummary importFollowed(InputStream input, DataFormat format, String username) {
+        Users user = usersRepository.findByUsername(username)
+                .orElseThrow(() -> exceptionUtil.createNotFoundException("User", username));
+        ImportBatch batch = new ImportBatch(user);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            if (format == DataFormat.CSV) {
+                readCsv(reader, batch);
+            } else {
+                readNdjson(reader, batch);
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            // What was read so far is still imported, the rest of the upload is reported as one rejection
+            batch.reject(batch.lastLine + 1, "Unable to read the upload: " + ex.getMessage());
+        }
+        batch.flush();
+
+        return FollowedImportSummary.builder()
+                .accepted(batch.accepted)
+                .rejected(batch.rejected)
+                .rejections(batch.rejections)
+                .build();
+    }
+
+    private void readNdjson(BufferedReader reader, ImportBatch batch) throws IOException {
+        BoundedLineReader lines = new BoundedLineReader(reader, MAX_RECORD_LENGTH);
+        long lineNumber = 0;
+        while (true) {
+            String line;
+            try {
+                line = lines.readLine();
+            } catch (BoundedLineReader.LineTooLongException ex) {
+                batch.reject(++lineNumber, "Record longer than " + MAX_RECORD_LENGTH + " characters");
+                continue;
+            }
+            if (line == null) {
+                break;
+            }
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            FollowedRequest request;
+            try {
+                request = objectMapper.readValue(line, FollowedRequest.class);
+            } catch (JsonProcessingException ex) {
+                request = null;
+            }
+            // A literal null line is read as no record rather than as an error
+            if (request == null) {
+                batch.reject(lineNumber, "Malformed JSON record");
+            } else {
+                batch.add(lineNumber, request);
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader, ImportBatch batch) throws IOException {
+        CsvRecordReader records = new CsvRecordReader(reader, MAX_RECORD_LENGTH);
+        List<String> header = records.next();
+        if (header == null) {
+            return;
+        }
+
+        // Columns are matched by name, so an export can be imported back as is
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim(), i);
+        }
+        for (String required : List.of("name", "levelType", "levelNumber", "episodeNumber")) {
+            if (!columns.containsKey(required)) {
+                throw new CustomAuthException("Missing CSV column: " + required, 400);
+            }
+        }
+
+        List<String> fields;
+        while ((fields = records.next()) != null) {
+            long lineNumber = records.recordLineNumber();
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(lineNumber, FollowedRequest.builder()
+                        .name(field(fields, columns, "name"))
+                        .levelType(field(fields, columns, "levelType"))
+                        .levelNumber(parseNumber(field(fields, columns, "levelNumber")))
+                        .episodeNumber(parseNumber(field(fields, columns, "episodeNumber")))
+                        .build());
+            } catch (NumberFormatException ex) {
+                batch.reject(lineNumber, "Invalid number: " + ex.getMessage());
+            }
+        }
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        int index = columns.get(column);
+        if (index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    // Same Number types as Jackson would bind from a JSON body
+    private static Number parseNumber(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (trimmed.contains(".") || trimmed.contains("e") || trimmed.contains("E")) {
+            return Double.valueOf(trimmed);
+        }
+        long number = Long.parseLong(trimmed);
+        return number == (int) number ? Integer.valueOf((int) number) : Long.valueOf(number);
+    }
+
+    /**
+     * Accumulates valid records and writes them every {@value #IMPORT_BATCH_SIZE}
+     * records, in a transaction of their own.
+     */
+    private final class ImportBatch {
+
+        private final Users owner;
+        private final List<Followed> pending = new ArrayList<>(IMPORT_BATCH_SIZE);
+        private final List<Long> pendingLines = new ArrayList<>(IMPORT_BATCH_SIZE);
+        private final List<FollowedImportSummary.Rejection> rejections = new ArrayList<>();
+        private long accepted;
+        private long rejected;
+        private long lastLine;
+
+        private ImportBatch(Users owner) {
+            this.owner = owner;
+        }
+
+        private void add(long lineNumber, FollowedRequest request) {
+            lastLine = lineNumber;
+            try {
+                followedService.validateRequest(request);
+            } catch (CustomAuthException ex) {
+                reject(lineNumber, ex.getMessage());
+                return;
+            }
+            pending.add(followedService.buildFollowed(request, owner));
+            pendingLines.add(lineNumber);
+            if (pending.size() == IMPORT_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void reject(long lineNumber, String reason) {
+            lastLine = Math.max(lastLine, lineNumber);
+            rejected++;
+            if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                rejections.add(new FollowedImportSummary.Rejection(lineNumber, reason));
+            }
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    List<Followed> saved = followedRepository.saveAll(pending);
+                    FollowedStatsDelta statsDelta = new FollowedStatsDelta();
+                    saved.forEach(statsDelta::add);
+                    statsService.apply(owner.getId(), statsDelta);
+                    cacheInvalidator.evict(saved.stream().map(Followed::getId).toList(), owner.getUsername());
+                    searchIndex.onSaved(owner.getUsername(), saved);
+                });
+                accepted += pending.size();
+            } catch (DataAccessException ex) {
+                // The whole batch was rolled back: its lines are reported, the import goes on
+                pendingLines.forEach(line -> reject(line, "Batch could not be saved"));
+            }
+            pending.clear();
+            pendingLines.clear();
+        }
+    }
+}
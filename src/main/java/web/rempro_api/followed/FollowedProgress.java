@@ -0,0 +1,80 @@
+package web.rempro_api.followed;
+
+import web.rempro_api.utils.dto.FollowedProgressRequest;
+import web.rempro_api.utils.dto.FollowedView;
+import web.rempro_api.utils.exception.CustomAuthException;
+
+/**
+ * Change of the progress of a Followed entity: each of the level and episode
+ * numbers is either set to {@code level} / {@code episode} or incremented by
+ * it. Changes compose, so that a burst of them can be written as one.
+ */
+public record FollowedProgress(boolean setLevel, int level, boolean setEpisode, int episode) {
+
+    /**
+     * Reads the change described by a progress request.
+     *
+     * @param request - The new values or the increments.
+     * @return The change.
+     * @throws CustomAuthException if a number is both set and incremented, or if
+     *                             the request changes nothing.
+     */
+    public static FollowedProgress of(FollowedProgressRequest request) {
+        boolean setLevel = isSet(request.getLevelNumber(), request.getLevelIncrement(), "level");
+        boolean setEpisode = isSet(request.getEpisodeNumber(), request.getEpisodeIncrement(), "episode");
+        if (!setLevel && request.getLevelIncrement() == null && !setEpisode && request.getEpisodeIncrement() == null) {
+            throw new CustomAuthException("Nothing to update.", 400);
+        }
+        return new FollowedProgress(
+                setLevel, setLevel ? request.getLevelNumber() : orZero(request.getLevelIncrement()),
+                setEpisode, setEpisode ? request.getEpisodeNumber() : orZero(request.getEpisodeIncrement()));
+    }
+
+    /**
+     * Composes this change with the one that follows it: a set value replaces
+     * whatever came before, increments add up.
+     *
+     * @param next - The later change.
+     * @return The change equivalent to this one then the next one.
+     * @throws CustomAuthException if the summed increments leave the integer
+     *                             range.
+     */
+    FollowedProgress then(FollowedProgress next) {
+        return new FollowedProgress(
+                setLevel || next.setLevel, next.setLevel ? next.level : add(level, next.level),
+                setEpisode || next.setEpisode, next.setEpisode ? next.episode : add(episode, next.episode));
+    }
+
+    /**
+     * Applies the change to a view.
+     *
+     * @param view - The view of the Followed entity before the change.
+     * @return A copy of the view with the changed numbers.
+     * @throws CustomAuthException if a number leaves the integer range.
+     */
+    FollowedView applyTo(FollowedView view) {
+        return view.toBuilder()
+                .levelNumber(setLevel ? level : add(orZero(view.getLevelNumber()), level))
+                .episodeNumber(setEpisode ? episode : add(orZero(view.getEpisodeNumber()), episode))
+                .build();
+    }
+
+    private static boolean isSet(Integer value, Integer increment, String field) {
+        if (value != null && increment != null) {
+            throw new CustomAuthException("Set the " + field + " number or increment it, not both.", 400);
+        }
+        return value != null;
+    }
+
+    private static int add(int value, int increment) {
+        try {
+            return Math.addExact(value, increment);
+        } catch (ArithmeticException ex) {
+            throw new CustomAuthException("Progress out of range.", 400);
+        }
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
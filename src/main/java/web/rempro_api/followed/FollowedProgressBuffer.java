@@ -0,0 +1,444 @@
+package web.rempro_api.followed;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import web.rempro_api.utils.dto.CursorPage;
+import web.rempro_api.utils.dto.FollowedView;
+import web.rempro_api.utils.exception.CustomAuthException;
+import web.rempro_api.utils.exception.ExceptionAuthUtil;
+
+/**
+ * Optional write-behind buffer for progress updates
+ * ({@code rempro.progress.write-behind.enabled}).
+ * <p>
+ * Updates of the same Followed entity are merged in memory, set values
+ * replacing and increments adding up, and written every flush interval, or
+ * sooner once enough entities are pending, as one JDBC batch. Reads overlay the
+ * pending changes on the database state, so a client sees its own updates
+ * before they are written. A flush moves the changes it writes to an in-flight
+ * map, which reads overlay as well, and drops them once committed and the
+ * caches evicted. It only takes the write lock to move changes from one map to
+ * the other and around the commit, so a read never counts a change twice nor
+ * misses it; locking and updating the rows runs without it.
+ * The version is increased by the number of merged updates, which keeps the
+ * ETags seen through the overlay valid once written.
+ * <p>
+ * Beyond {@code max-pending} entities, or once shut down, updates are written
+ * directly. Pending updates are lost if the process dies before a flush;
+ * a graceful shutdown flushes them.
+ */
+@Component
+public class FollowedProgressBuffer {
+
+    private static final String UPDATE_SQL = """
+            UPDATE followed
+            SET level_number = CASE WHEN ? THEN ? ELSE COALESCE(level_number, 0) + ? END,
+                episode_number = CASE WHEN ? THEN ? ELSE COALESCE(episode_number, 0) + ? END,
+                updated_at = ?,
+                version = version + ?
+            WHERE id = ?""";
+
+    private static final String LOCK_SQL = """
+            SELECT id, user_id, COALESCE(episode_number, 0) FROM followed
+            WHERE id = ANY (?)
+            FOR UPDATE""";
+
+    private final boolean enabled;
+    private final int maxPending;
+    private final int flushThreshold;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final FollowedCacheInvalidator cacheInvalidator;
+    private final FollowedStatsService statsService;
+    private final ExceptionAuthUtil exceptionUtil;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    // Drained changes being written, overlaid under the pending ones
+    private final Map<Long, Pending> inFlight = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+    // One flush at a time, without blocking the reads
+    private final Lock flushing = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private final Counter buffered;
+    private final Counter flushed;
+    private final Counter dropped;
+
+    public FollowedProgressBuffer(
+            @Value("${rempro.progress.write-behind.enabled:false}") boolean enabled,
+            @Value("${rempro.progress.write-behind.max-pending:10000}") int maxPending,
+            @Value("${rempro.progress.write-behind.flush-threshold:1000}") int flushThreshold,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            TaskScheduler taskScheduler,
+            FollowedCacheInvalidator cacheInvalidator,
+            FollowedStatsService statsService,
+            ExceptionAuthUtil exceptionUtil,
+            MeterRegistry registry) {
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+        this.flushThreshold = flushThreshold;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskScheduler = taskScheduler;
+        this.cacheInvalidator = cacheInvalidator;
+        this.statsService = statsService;
+        this.exceptionUtil = exceptionUtil;
+
+        Gauge.builder("rempro.progress.buffer.pending", pending, Map::size)
+                .description("Followed entities with buffered progress updates")
+                .register(registry);
+        this.buffered = Counter.builder("rempro.progress.buffer.updates")
+                .description("Progress updates merged into the buffer")
+                .register(registry);
+        this.flushed = Counter.builder("rempro.progress.buffer.flushed")
+                .description("Rows written by buffer flushes")
+                .register(registry);
+        this.dropped = Counter.builder("rempro.progress.buffer.dropped")
+                .description("Buffered updates refused by the database")
+                .register(registry);
+    }
+
+    /**
+     * Buffers a progress update of a Followed entity, if the buffer takes it.
+     *
+     * @param id       - The ID of the Followed entity.
+     * @param owner    - The username of the user updating the entity.
+     * @param progress - The change of progress.
+     * @param loader   - Loads the current view of the entity from the database.
+     * @return The view of the entity with all its pending changes, or null if
+     *         the update was not buffered and must be written directly.
+     * @throws CustomAuthException if the entity does not exist or is not owned
+     *                             by the user, or if a number would leave the
+     *                             integer range.
+     */
+    public FollowedView offer(Long id, String owner, FollowedProgress progress, Supplier<FollowedView> loader) {
+        if (!enabled || closed || (pending.size() >= maxPending && !pending.containsKey(id))) {
+            return null;
+        }
+        FollowedView updated;
+        flushLock.readLock().lock();
+        try {
+            FollowedView current = overlayInFlight(loader.get());
+            if (!owner.equals(current.getOwnerUsername())) {
+                throw exceptionUtil.createNotFoundException("Followed", id);
+            }
+            Pending merged = pending.compute(id, (key, before) -> {
+                Pending next = before == null ? new Pending(owner, progress, 1) : before.then(progress);
+                // Refuses a change that could not be written, before keeping it
+                next.progress().applyTo(current);
+                return next;
+            });
+            updated = merged.applyTo(current);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+        buffered.increment();
+        cacheInvalidator.touch(owner);
+        if (pending.size() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+        return updated;
+    }
+
+    /**
+     * Reads a Followed view with its pending changes.
+     *
+     * @param loader - Loads the view from the database or its cache.
+     * @return The view, with its pending changes applied.
+     */
+    public FollowedView read(Supplier<FollowedView> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        flushLock.readLock().lock();
+        try {
+            return overlay(loader.get());
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads a page of Followed views with their pending changes. The cursor is
+     * the database one: pages stay consistent with the database order.
+     *
+     * @param loader - Loads the page from the database or its cache.
+     * @return The page, with the pending changes applied.
+     */
+    public CursorPage<FollowedView> readPage(Supplier<CursorPage<FollowedView>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        flushLock.readLock().lock();
+        try {
+            CursorPage<FollowedView> page = loader.get();
+            if (pending.isEmpty() && inFlight.isEmpty()) {
+                return page;
+            }
+            return new CursorPage<>(page.getItems().stream().map(this::overlay).toList(), page.getNext());
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the pending changes of a Followed entity, superseded by a full
+     * update or a deletion.
+     *
+     * @param id - The ID of the Followed entity.
+     * @return The number of updates dropped, which the version must still count.
+     */
+    public int discard(Long id) {
+        Pending superseded = enabled ? pending.remove(id) : null;
+        return superseded != null ? superseded.merges() : 0;
+    }
+
+    /**
+     * Drops the pending changes of a Followed entity only if it belongs to the
+     * given user, for writes whose IDs are not checked yet.
+     *
+     * @param id    - The ID of the Followed entity.
+     * @param owner - The username of the user writing the entity.
+     * @return The number of updates dropped, which the version must still count.
+     */
+    public int discard(Long id, String owner) {
+        if (!enabled) {
+            return 0;
+        }
+        Pending[] superseded = new Pending[1];
+        pending.computeIfPresent(id, (key, change) -> {
+            if (!change.owner().equals(owner)) {
+                return change;
+            }
+            superseded[0] = change;
+            return null;
+        });
+        return superseded[0] != null ? superseded[0].merges() : 0;
+    }
+
+    /**
+     * Writes the pending changes as one JDBC batch. Rows refused by the database
+     * are dropped; the others are kept for the next flush if the database is
+     * unavailable.
+     */
+    @Scheduled(fixedDelayString = "${rempro.progress.write-behind.flush-interval:PT1S}")
+    public void flush() {
+        flushRequested.set(false);
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushing.lock();
+        try {
+            Map<Long, Pending> batch = drain();
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException ex) {
+                // One refused row fails the whole batch: retry them one by one
+                batch.forEach((id, change) -> {
+                    if (!inFlight.containsKey(id)) {
+                        // Committed before the failure
+                        return;
+                    }
+                    try {
+                        write(Map.of(id, change));
+                    } catch (DataIntegrityViolationException refused) {
+                        inFlight.remove(id);
+                        dropped.increment(change.merges());
+                    } catch (RuntimeException unavailable) {
+                        requeue(id, change);
+                    }
+                });
+            }
+        } finally {
+            flushing.unlock();
+        }
+    }
+
+    /**
+     * Flushes the pending changes before the database goes away; later updates
+     * are written directly.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        flush();
+    }
+
+    /**
+     * Moves the pending changes to the in-flight map, under the write lock so
+     * that no read sees a change in both maps or in neither.
+     *
+     * @return The changes to write, by Followed ID.
+     */
+    private Map<Long, Pending> drain() {
+        Map<Long, Pending> batch = new HashMap<>();
+        flushLock.writeLock().lock();
+        try {
+            for (Long id : List.copyOf(pending.keySet())) {
+                Pending drained = pending.remove(id);
+                if (drained != null) {
+                    inFlight.put(id, drained);
+                    batch.put(id, drained);
+                }
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+        return batch;
+    }
+
+    /**
+     * Puts back an in-flight change that could not be written, before the
+     * changes buffered since.
+     */
+    private void requeue(Long id, Pending change) {
+        flushLock.writeLock().lock();
+        try {
+            pending.merge(id, change, (newer, older) -> older.then(newer));
+            inFlight.remove(id);
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    private void write(Map<Long, Pending> batch) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        Map<String, List<Long>> idsByOwner = new HashMap<>();
+        batch.forEach((id, change) -> {
+            FollowedProgress progress = change.progress();
+            rows.add(new Object[] { progress.setLevel(), progress.level(), progress.level(),
+                    progress.setEpisode(), progress.episode(), progress.episode(), now, change.merges(), id });
+            idsByOwner.computeIfAbsent(change.owner(), owner -> new ArrayList<>()).add(id);
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            TransactionSynchronizationManager.registerSynchronization(new CommitWindow(batch.keySet()));
+            Map<Long, FollowedStatsDelta> statsDeltas = lockStatsDeltas(batch);
+            jdbcTemplate.batchUpdate(UPDATE_SQL, rows);
+            statsService.apply(statsDeltas);
+            idsByOwner.forEach((owner, ids) -> cacheInvalidator.evict(ids, owner));
+        });
+        flushed.increment(rows.size());
+    }
+
+    /**
+     * Locks the rows of a batch until it is written, and computes the change of
+     * the episode total of each owner: a set episode number changes it by its
+     * difference with the locked one. Deleted rows are skipped.
+     *
+     * @param batch - The pending changes to write, by Followed ID.
+     * @return The change of the statistics of each owner, by user ID.
+     */
+    private Map<Long, FollowedStatsDelta> lockStatsDeltas(Map<Long, Pending> batch) {
+        Map<Long, FollowedStatsDelta> deltas = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOCK_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", batch.keySet().toArray()));
+            return statement;
+        }, row -> {
+            FollowedProgress progress = batch.get(row.getLong(1)).progress();
+            long episodes = progress.setEpisode() ? (long) progress.episode() - row.getInt(3) : progress.episode();
+            deltas.computeIfAbsent(row.getLong(2), userId -> new FollowedStatsDelta()).addEpisodes(episodes);
+        });
+        return deltas;
+    }
+
+    private FollowedView overlay(FollowedView view) {
+        Pending change = pending.get(view.getId());
+        FollowedView written = overlayInFlight(view);
+        return change != null ? change.applyTo(written) : written;
+    }
+
+    private FollowedView overlayInFlight(FollowedView view) {
+        Pending change = inFlight.get(view.getId());
+        return change != null ? change.applyTo(view) : view;
+    }
+
+    /**
+     * Holds the write lock from the commit of a flush until its cache evictions
+     * have run and its changes left the in-flight map: reads before it see the
+     * old rows with the changes overlaid, reads after it the written rows alone.
+     */
+    private final class CommitWindow implements TransactionSynchronization {
+
+        private final Collection<Long> ids;
+
+        CommitWindow(Collection<Long> ids) {
+            this.ids = List.copyOf(ids);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            flushLock.writeLock().lock();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                ids.forEach(inFlight::remove);
+            }
+            // Not taken when the transaction failed before its commit
+            if (flushLock.writeLock().isHeldByCurrentThread()) {
+                flushLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Merged pending change of one Followed entity.
+     *
+     * @param owner    - The username of the owner, for the cache evictions.
+     * @param progress - The change to write.
+     * @param merges   - The number of updates merged into it.
+     */
+    private record Pending(String owner, FollowedProgress progress, int merges) {
+
+        Pending then(FollowedProgress next) {
+            return new Pending(owner, progress.then(next), merges + 1);
+        }
+
+        Pending then(Pending next) {
+            return new Pending(owner, progress.then(next.progress), merges + next.merges);
+        }
+
+        FollowedView applyTo(FollowedView view) {
+            return progress.applyTo(view).toBuilder()
+                    .version(view.getVersion() + merges)
+                    .build();
+        }
+    }
+}
@@ -1,9 +1,22 @@
 package web.rempro_api.followed;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
+
+import web.rempro_api.utils.dto.FollowedView;
 import web.rempro_api.utils.enums.LevelType;
 import web.rempro_api.users.Users;
 
@@ -11,4 +24,98 @@ import web.rempro_api.users.Users;
 public interface FollowedRepository extends JpaRepository<Followed, Long> {
     List<Followed> findByLevelType(LevelType levelType);
     List<Followed> findByCreatedBy(Users createdBy);
+    List<Followed> findByCreatedByAndIdIn(Users createdBy, Collection<Long> ids);
+
+    @Query("SELECT f.id AS id, f.name AS name, f.levelType AS levelType FROM Followed f WHERE f.createdBy = :user")
+    List<FollowedSearchEntry> findSearchEntriesByCreatedBy(@Param("user") Users user);
+
+    // Read-side projections: only the columns the API returns, owner included through a single join
+    @Query("""
+            SELECT new web.rempro_api.utils.dto.FollowedView(
+                f.id, f.name, f.levelType, f.levelNumber, f.episodeNumber, f.createdAt, f.updatedAt, f.version, u.id, u.username)
+            FROM Followed f JOIN f.createdBy u
+            WHERE f.id = :id""")
+    Optional<FollowedView> findViewById(@Param("id") Long id);
+
+    // Keyset pagination, newest first: (updatedAt, id) DESC keeps the order stable on ties
+    @Query("""
+            SELECT new web.rempro_api.utils.dto.FollowedView(
+                f.id, f.name, f.levelType, f.levelNumber, f.episodeNumber, f.createdAt, f.updatedAt, f.version, u.id, u.username)
+            FROM Followed f JOIN f.createdBy u
+            ORDER BY f.updatedAt DESC, f.id DESC""")
+    List<FollowedView> findFirstPage(Limit limit);
+
+    @Query("""
+            SELECT new web.rempro_api.utils.dto.FollowedView(
+                f.id, f.name, f.levelType, f.levelNumber, f.episodeNumber, f.createdAt, f.updatedAt, f.version, u.id, u.username)
+            FROM Followed f JOIN f.createdBy u
+            WHERE f.updatedAt < :updatedAt OR (f.updatedAt = :updatedAt AND f.id < :id)
+            ORDER BY f.updatedAt DESC, f.id DESC""")
+    List<FollowedView> findPageAfter(@Param("updatedAt") Date updatedAt, @Param("id") Long id, Limit limit);
+
+    @Query("""
+            SELECT new web.rempro_api.utils.dto.FollowedView(
+                f.id, f.name, f.levelType, f.levelNumber, f.episodeNumber, f.createdAt, f.updatedAt, f.version, u.id, u.username)
+            FROM Followed f JOIN f.createdBy u
+            WHERE u = :user
+            ORDER BY f.updatedAt DESC, f.id DESC""")
+    List<FollowedView> findFirstPageByCreatedBy(@Param("user") Users user, Limit limit);
+
+    @Query("""
+            SELECT new web.rempro_api.utils.dto.FollowedView(
+                f.id, f.name, f.levelType, f.levelNumber, f.episodeNumber, f.createdAt, f.updatedAt, f.version, u.id, u.username)
+            FROM Followed f JOIN f.createdBy u
+            WHERE u = :user
+              AND (f.updatedAt < :updatedAt OR (f.updatedAt = :updatedAt AND f.id < :id))
+            ORDER BY f.updatedAt DESC, f.id DESC""")
+    List<FollowedView> findPageByCreatedByAfter(@Param("user") Users user, @Param("updatedAt") Date updatedAt,
+            @Param("id") Long id, Limit limit);
+
+    // Delta sync, oldest change first: same index as the listings, scanned backwards
+    @Query("""
+            SELECT new web.rempro_api.utils.dto.FollowedView(
+                f.id, f.name, f.levelType, f.levelNumber, f.episodeNumber, f.createdAt, f.updatedAt, f.version, u.id, u.username)
+            FROM Followed f JOIN f.createdBy u
+            WHERE u = :user
+              AND (f.updatedAt > :updatedAt OR (f.updatedAt = :updatedAt AND f.id > :id))
+            ORDER BY f.updatedAt ASC, f.id ASC""")
+    List<FollowedView> findChangesByCreatedByAfter(@Param("user") Users user, @Param("updatedAt") Date updatedAt,
+            @Param("id") Long id, Limit limit);
+
+    // Progress in one statement, scoped to the owner: the database applies the increments, so concurrent
+    // writers cannot lose each other's updates. Each value is either set or added (set* = false).
+    @Query(value = """
+            UPDATE followed
+            SET level_number = CASE WHEN :setLevel THEN :level ELSE COALESCE(level_number, 0) + :level END,
+                episode_number = CASE WHEN :setEpisode THEN :episode ELSE COALESCE(episode_number, 0) + :episode END,
+                updated_at = :updatedAt,
+                version = version + 1
+            WHERE id = :id AND user_id = (SELECT u.id FROM users u WHERE u.username = :owner)
+            RETURNING *""", nativeQuery = true)
+    Optional<Followed> updateProgress(@Param("id") Long id, @Param("owner") String owner,
+            @Param("setLevel") boolean setLevel, @Param("level") int level,
+            @Param("setEpisode") boolean setEpisode, @Param("episode") int episode,
+            @Param("updatedAt") Date updatedAt);
+
+    // Episode number before a progress update sets it, locked so that no writer changes it in between
+    @Query(value = """
+            SELECT COALESCE(episode_number, 0) FROM followed
+            WHERE id = :id AND user_id = (SELECT u.id FROM users u WHERE u.username = :owner)
+            FOR UPDATE""", nativeQuery = true)
+    Optional<Integer> lockEpisodeNumber(@Param("id") Long id, @Param("owner") String owner);
+
+    // Counts the buffered progress updates superseded by a full update, so versions never go back
+    @Modifying
+    @Query("UPDATE Followed f SET f.version = f.version + :by WHERE f.id = :id")
+    void incrementVersion(@Param("id") Long id, @Param("by") long by);
+
+    // Streams unmanaged views through a server-side cursor: memory stays flat whatever the row count
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            SELECT new web.rempro_api.utils.dto.FollowedView(
+                f.id, f.name, f.levelType, f.levelNumber, f.episodeNumber, f.createdAt, f.updatedAt, f.version, u.id, u.username)
+            FROM Followed f JOIN f.createdBy u
+            WHERE u = :user
+            ORDER BY f.updatedAt DESC, f.id DESC""")
+    Stream<FollowedView> streamViewsByCreatedBy(@Param("user") Users user);
 }
@@ -0,0 +1,14 @@
+package web.rempro_api.followed;
+
+import web.rempro_api.utils.enums.LevelType;
+
+/**
+ * Interface projection with the only columns the search index needs.
+ */
+public interface FollowedSearchEntry {
+    Long getId();
+
+    String getName();
+
+    LevelType getLevelType();
+}
@@ -0,0 +1,341 @@
+package web.rempro_api.followed;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import web.rempro_api.utils.dto.FollowedSearchResult;
+import web.rempro_api.utils.enums.LevelType;
+
+/**
+ * In-memory, per-user trigram index over Followed names, serving prefix and
+ * typo-tolerant search.
+ * <p>
+ * A user's index is built from the database on their first search and then
+ * kept up to date by the write paths, after commit. Names are normalized
+ * (lower case, no accents, punctuation as spaces) and each word is split into
+ * trigrams padded like pg_trgm, so the leading trigrams of a word also answer
+ * short prefixes. Only a bounded number of users is indexed at once, the least
+ * recently searched being dropped first.
+ */
+@Component
+public class FollowedSearchIndex implements MeterBinder {
+
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 50;
+
+    // Minimal share of the query trigrams a name must contain to match
+    private static final double MIN_WORD_SIMILARITY = 0.5;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Cache<String, UserIndex> indexes;
+    // Last write time of recently written owners, to drop indexes built from an outdated read
+    private final Cache<String, Long> recentWrites = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+    // Time of the last drop of every index, which indexes built from an earlier read must not survive
+    private volatile long lastInvalidateAll = System.nanoTime();
+
+    public FollowedSearchIndex(
+            @Value("${rempro.search.max-indexed-users:1000}") long maxIndexedUsers,
+            @Value("${rempro.search.idle-ttl:30m}") Duration idleTtl) {
+        this.indexes = Caffeine.newBuilder()
+                .maximumSize(maxIndexedUsers)
+                .expireAfterAccess(idleTtl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Same tag keys as the Spring caches, which share the cache.* meter names
+        CaffeineCacheMetrics.monitor(registry, indexes, "followedSearchIndex",
+                "cache.manager", "none", "name", "followedSearchIndex");
+    }
+
+    /**
+     * Searches the Followed names of a user.
+     *
+     * @param username  - The owner of the Followed entities.
+     * @param query     - The text typed by the user.
+     * @param levelType - Restricts the results to a level type, may be null.
+     * @param limit     - The maximum number of results.
+     * @param loader    - Loads the user's entries when their index is not built.
+     * @return The matches, prefix matches first, then by decreasing similarity.
+     */
+    public List<FollowedSearchResult> search(String username, String query, LevelType levelType, int limit,
+            Supplier<List<FollowedSearchEntry>> loader) {
+        String normalizedQuery = normalize(query);
+        if (normalizedQuery.isEmpty()) {
+            return List.of();
+        }
+        UserIndex index = indexes.getIfPresent(username);
+        if (index == null) {
+            index = buildIndex(username, loader);
+        }
+        return index.search(normalizedQuery, levelType, limit);
+    }
+
+    /**
+     * Builds the index of a user outside of any cache lock: loading runs a query,
+     * and blocking inside the cache's compute would pin a virtual thread to its
+     * carrier. The index is only kept if no write of the user committed while it
+     * was being loaded, otherwise it may miss that write.
+     * <p>
+     * Writers record their write before looking for the index to update, so the
+     * check is made again once the index is published: a write it misses then
+     * necessarily finds the index and updates it.
+     */
+    private UserIndex buildIndex(String username, Supplier<List<FollowedSearchEntry>> loader) {
+        long buildStart = System.nanoTime();
+        UserIndex index = UserIndex.build(loader.get());
+        if (!writtenSince(username, buildStart)) {
+            UserIndex concurrent = indexes.asMap().putIfAbsent(username, index);
+            if (concurrent != null) {
+                return concurrent;
+            }
+            if (writtenSince(username, buildStart)) {
+                indexes.asMap().remove(username, index);
+            }
+        }
+        return index;
+    }
+
+    private boolean writtenSince(String username, long since) {
+        Long lastWrite = recentWrites.getIfPresent(username);
+        return (lastWrite != null && lastWrite - since >= 0) || lastInvalidateAll - since >= 0;
+    }
+
+    /**
+     * Adds or replaces Followed entities in their owner's index, once the
+     * current transaction commits. Owners that are not indexed are skipped: their
+     * index is built from the database on their next search.
+     *
+     * @param owner    - The username of the owner of the Followed entities.
+     * @param followed - The saved Followed entities.
+     */
+    public void onSaved(String owner, Collection<Followed> followed) {
+        List<IndexedName> names = followed.stream()
+                .map(f -> new IndexedName(f.getId(), f.getName(), f.getLevelType()))
+                .toList();
+        afterCommit(() -> {
+            recentWrites.put(owner, System.nanoTime());
+            UserIndex index = indexes.policy().getIfPresentQuietly(owner);
+            if (index != null) {
+                names.forEach(index::put);
+            }
+        });
+    }
+
+    /**
+     * Removes a Followed entity from its owner's index, once the current
+     * transaction commits.
+     *
+     * @param owner - The username of the owner of the Followed entity.
+     * @param id    - The ID of the deleted Followed entity.
+     */
+    public void onDeleted(String owner, Long id) {
+        afterCommit(() -> {
+            recentWrites.put(owner, System.nanoTime());
+            UserIndex index = indexes.policy().getIfPresentQuietly(owner);
+            if (index != null) {
+                index.remove(id);
+            }
+        });
+    }
+
+    /**
+     * Drops the index of a user, rebuilt on their next search, after a write
+     * made elsewhere. An index being built concurrently is not kept either.
+     *
+     * @param owner - The username of the owner.
+     */
+    public void invalidate(String owner) {
+        recentWrites.put(owner, System.nanoTime());
+        indexes.invalidate(owner);
+    }
+
+    /**
+     * Drops the index of every user, when writes made elsewhere may have been
+     * missed. Indexes being built concurrently are not kept either.
+     */
+    public void invalidateAll() {
+        lastInvalidateAll = System.nanoTime();
+        indexes.invalidateAll();
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String withoutMarks = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(withoutMarks.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    static Set<String> trigrams(String normalized) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (String word : normalized.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record IndexedName(Long id, String name, LevelType levelType) {
+    }
+
+    private record Entry(IndexedName name, String normalized, Set<String> trigrams) {
+    }
+
+    /**
+     * Trigram postings of one user. Searches share a read lock, updates take the
+     * write lock.
+     */
+    private static final class UserIndex {
+
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private final Map<String, Set<Long>> postings = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        static UserIndex build(List<FollowedSearchEntry> rows) {
+            UserIndex index = new UserIndex();
+            rows.forEach(row -> index.put(new IndexedName(row.getId(), row.getName(), row.getLevelType())));
+            return index;
+        }
+
+        void put(IndexedName name) {
+            String normalized = normalize(name.name());
+            Entry entry = new Entry(name, normalized, trigrams(normalized));
+            lock.writeLock().lock();
+            try {
+                removeUnlocked(name.id());
+                entries.put(name.id(), entry);
+                entry.trigrams().forEach(trigram -> postings.computeIfAbsent(trigram, key -> new HashSet<>())
+                        .add(name.id()));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long id) {
+            lock.writeLock().lock();
+            try {
+                removeUnlocked(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeUnlocked(Long id) {
+            Entry previous = entries.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (String trigram : previous.trigrams()) {
+                Set<Long> ids = postings.get(trigram);
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+
+        List<FollowedSearchResult> search(String query, LevelType levelType, int limit) {
+            Set<String> queryTrigrams = trigrams(query);
+            List<FollowedSearchResult> results = new ArrayList<>();
+
+            lock.readLock().lock();
+            try {
+                // Number of query trigrams found in each candidate name
+                Map<Long, Integer> shared = new HashMap<>();
+                for (String trigram : queryTrigrams) {
+                    Set<Long> ids = postings.get(trigram);
+                    if (ids != null) {
+                        ids.forEach(id -> shared.merge(id, 1, Integer::sum));
+                    }
+                }
+
+                for (Map.Entry<Long, Integer> candidate : shared.entrySet()) {
+                    Entry entry = entries.get(candidate.getKey());
+                    if (levelType != null && entry.name().levelType() != levelType) {
+                        continue;
+                    }
+                    double score = score(entry.normalized(), query, candidate.getValue(), queryTrigrams.size());
+                    if (score >= MIN_WORD_SIMILARITY) {
+                        results.add(FollowedSearchResult.builder()
+                                .id(entry.name().id())
+                                .name(entry.name().name())
+                                .levelType(entry.name().levelType())
+                                .score(score)
+                                .build());
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            results.sort(Comparator.comparingDouble(FollowedSearchResult::getScore).reversed()
+                    .thenComparingInt(result -> result.getName().length())
+                    .thenComparing(FollowedSearchResult::getId));
+            return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+        }
+
+        /**
+         * Prefix matches of the whole name score 2, prefix matches of a word 1.5,
+         * other names the share of the query trigrams they contain.
+         */
+        private static double score(String name, String query, int sharedTrigrams, int queryTrigrams) {
+            if (name.startsWith(query)) {
+                return 2.0;
+            }
+            if (name.contains(" " + query)) {
+                return 1.5;
+            }
+            return (double) sharedTrigrams / queryTrigrams;
+        }
+    }
+}
@@ -1,17 +1,30 @@
 package web.rempro_api.followed;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 import web.rempro_api.users.Users;
 import web.rempro_api.users.UsersRepository;
+import web.rempro_api.utils.datasource.ReplicaRoutingDataSource;
+import web.rempro_api.utils.dto.CursorPage;
+import web.rempro_api.utils.dto.FollowedBatchResult;
 import web.rempro_api.utils.dto.FollowedRequest;
+import web.rempro_api.utils.dto.FollowedSearchResult;
+import web.rempro_api.utils.dto.FollowedView;
 import web.rempro_api.utils.enums.LevelType;
 import web.rempro_api.utils.exception.CustomAuthException;
 import web.rempro_api.utils.exception.ExceptionAuthUtil;
@@ -25,9 +38,18 @@ import web.rempro_api.utils.exception.ExceptionAuthUtil;
 @RequiredArgsConstructor
 public class FollowedService {
 
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+    static final int MAX_BATCH_SIZE = 5000;
+
     private final FollowedRepository followedRepository;
     private final UsersRepository usersRepository;
     private final ExceptionAuthUtil exceptionUtil;
+    private final FollowedCacheInvalidator cacheInvalidator;
+    private final FollowedSearchIndex searchIndex;
+    private final FollowedTombstoneRepository tombstoneRepository;
+    private final FollowedProgressBuffer progressBuffer;
+    private final FollowedStatsService statsService;
 
     /**
      * Creates a new Followed entity based on the provided request and username.
@@ -39,51 +61,144 @@ public class FollowedService {
      *                             invalid.
      */
     @Transactional
-    @Cacheable("followedCache")
     public Followed createFollowed(FollowedRequest request, String username) {
         Users user = getUserByUsername(username);
-        return saveFollowed(request, user);
+        Followed followed = saveFollowed(request, user);
+        statsService.apply(user.getId(), new FollowedStatsDelta().add(followed));
+        cacheInvalidator.evict(followed.getId(), username);
+        searchIndex.onSaved(username, List.of(followed));
+        return followed;
     }
 
     /**
      * Retrieves a Followed entity by its ID.
      * 
      * @param id - The ID of the Followed entity to retrieve.
-     * @return The Followed entity with the specified ID.
+     * @return The view of the Followed entity with the specified ID.
      * @throws CustomAuthException if the Followed entity with the given ID does not
      *                             exist.
      */
     @Transactional(readOnly = true)
-    @Cacheable("followedByIdCache")
-    public Followed getFollowedById(Long id) {
-        return followedRepository.findById(id)
+    @Cacheable(value = FollowedCacheInvalidator.BY_ID_CACHE, key = "@followedCacheInvalidator.byIdKey(#id)")
+    public FollowedView getFollowedById(Long id) {
+        // Cached: not from a replica behind the eviction
+        return ReplicaRoutingDataSource.readFresh(FollowedCacheInvalidator.entityReadKey(id),
+                () -> followedRepository.findViewById(id))
                 .orElseThrow(() -> exceptionUtil.createNotFoundException("Followed", id));
     }
 
     /**
-     * Retrieves all Followed entities.
+     * Retrieves one page of all Followed entities, most recently updated first.
      * 
-     * @return A list of all Followed entities.
+     * @param cursor - The opaque cursor returned with the previous page, or null
+     *               for the first page.
+     * @param size   - The requested page size, capped at {@value #MAX_PAGE_SIZE}.
+     * @return A page of Followed views and the cursor of the next page.
+     * @throws CustomAuthException if the cursor or the page size is invalid.
      */
     @Transactional(readOnly = true)
-    @Cacheable("allFollowedCache")
-    public List<Followed> getAllFollowed() {
-        return followedRepository.findAll();
+    @Cacheable(value = FollowedCacheInvalidator.ALL_CACHE, key = "@followedCacheInvalidator.allKey(#cursor, #size)")
+    public CursorPage<FollowedView> getAllFollowed(String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        FollowedCursor after = cursor != null ? FollowedCursor.decode(cursor) : null;
+
+        // Cached: not from a replica behind the eviction
+        return ReplicaRoutingDataSource.readFresh(FollowedCacheInvalidator.ALL_READ_KEY, () -> after == null
+                ? toPage(followedRepository.findFirstPage(limit), pageSize)
+                : toPage(followedRepository.findPageAfter(after.updatedAt(), after.id(), limit), pageSize));
     }
 
     /**
-     * Retrieves all Followed entities created by a specific user.
+     * Computes the strong ETag of a Followed view from its ID and version.
+     * 
+     * @param view - The view of the Followed entity.
+     * @return The quoted entity tag.
+     */
+    public static String eTagOf(FollowedView view) {
+        return "\"" + view.getId() + "-" + view.getVersion() + "\"";
+    }
+
+    /**
+     * Computes the strong ETag of one page of a user's Followed listing from the
+     * user's listing version, which every create, update and delete bumps. It
+     * must be read before the page is loaded: a write committing in between
+     * then makes the tag older than the content, never newer.
+     * 
+     * @param username - The owner of the Followed entities.
+     * @param cursor   - The cursor of the page, or null for the first page.
+     * @param size     - The requested page size.
+     * @return The quoted entity tag.
+     * @throws CustomAuthException if the page size is invalid.
+     */
+    public String getFollowedByUserETag(String username, String cursor, Integer size) {
+        return "\"" + cacheInvalidator.ownerVersion(username) + "-" + resolvePageSize(size) + "-"
+                + (cursor != null ? cursor : "") + "\"";
+    }
+
+    /**
+     * Retrieves one page of the Followed entities created by a specific user,
+     * most recently updated first.
      * 
      * @param username - The username of the user whose Followed entities are to be
      *                 retrieved.
-     * @return A list of Followed entities created by the specified user.
-     * @throws CustomAuthException if the user is not found.
+     * @param cursor   - The opaque cursor returned with the previous page, or null
+     *                 for the first page.
+     * @param size     - The requested page size, capped at {@value #MAX_PAGE_SIZE}.
+     * @return A page of Followed views and the cursor of the next page.
+     * @throws CustomAuthException if the user is not found or if the cursor or the
+     *                             page size is invalid.
      */
     @Transactional(readOnly = true)
-    @Cacheable("followedByUserCache")
-    public List<Followed> getAllFollowedByUser(String username) {
-        Users user = getUserByUsername(username);
-        return followedRepository.findByCreatedBy(user);
+    @Cacheable(value = FollowedCacheInvalidator.BY_USER_CACHE,
+            key = "#username + ':' + @followedCacheInvalidator.ownerVersion(#username) + ':' + #cursor + ':' + #size")
+    public CursorPage<FollowedView> getAllFollowedByUser(String username, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        FollowedCursor after = cursor != null ? FollowedCursor.decode(cursor) : null;
+
+        // Cached under the listing version the write bumped: not from a replica behind it
+        return ReplicaRoutingDataSource.readFresh(FollowedCacheInvalidator.ownerReadKey(username), () -> {
+            Users user = getUserByUsername(username);
+            if (after == null) {
+                return toPage(followedRepository.findFirstPageByCreatedBy(user, limit), pageSize);
+            }
+            return toPage(followedRepository.findPageByCreatedByAfter(user, after.updatedAt(), after.id(), limit),
+                    pageSize);
+        });
+    }
+
+    /**
+     * Searches the Followed entities of a user by name, matching prefixes and
+     * tolerating typos. Served from the user's in-memory search index, built
+     * from the database on their first search.
+     * 
+     * @param username  - The username of the user whose Followed entities are
+     *                  searched.
+     * @param query     - The text to search for.
+     * @param levelType - Restricts the results to a level type, may be null.
+     * @param limit     - The maximum number of results, capped at
+     *                  {@value FollowedSearchIndex#MAX_LIMIT}.
+     * @return The matching Followed entities, best matches first.
+     * @throws CustomAuthException if the query, the level type or the limit is
+     *                             invalid, or if the user is not found.
+     */
+    public List<FollowedSearchResult> searchFollowed(String username, String query, String levelType,
+            Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new CustomAuthException("Query is required.", 400);
+        }
+        if (limit != null && limit < 1) {
+            throw new CustomAuthException("Limit must be positive.", 400);
+        }
+        LevelType type = levelType != null ? parseLevelType(levelType) : null;
+        int maxResults = limit != null ? Math.min(limit, FollowedSearchIndex.MAX_LIMIT)
+                : FollowedSearchIndex.DEFAULT_LIMIT;
+
+        // The index is kept until evicted: not from a replica behind the eviction
+        return searchIndex.search(username, query, type, maxResults,
+                () -> ReplicaRoutingDataSource.readFresh(FollowedCacheInvalidator.ownerReadKey(username),
+                        () -> followedRepository.findSearchEntriesByCreatedBy(getUserByUsername(username))));
     }
 
     /**
@@ -93,39 +208,201 @@ public class FollowedService {
      * 
      * @param id      - The ID of the Followed entity to update.
      * @param request - The data to update the Followed entity with.
-     * @return The updated Followed entity.
+     * @return The view of the updated Followed entity.
      * @throws CustomAuthException if the Followed entity with the given ID does not
-     *                             exist.
+     *                             exist, if the request is invalid, or if the
+     *                             entity changed since the version of the request
+     *                             or during the update.
      */
     @Transactional
-    public Followed updateFollowed(Long id, FollowedRequest request) {
-        Followed toUpdate = getFollowedById(id);
+    public FollowedView updateFollowed(Long id, FollowedRequest request) {
+        absorbBufferedProgress(id, progressBuffer.discard(id));
+        Followed toUpdate = findFollowed(id);
 
-        // Validation des champs requis
-        Optional.ofNullable(request.getName()).orElseThrow(() -> new CustomAuthException("Name is required.", 400));
-        Optional.ofNullable(request.getLevelType())
-                .orElseThrow(() -> new CustomAuthException("LevelType is required.", 400));
-        Optional.ofNullable(request.getLevelNumber())
-                .orElseThrow(() -> new CustomAuthException("LevelNumber is required.", 400));
-        Optional.ofNullable(request.getEpisodeNumber())
-                .orElseThrow(() -> new CustomAuthException("EpisodeNumber is required.", 400));
+        validateRequest(request);
+        checkVersion(toUpdate, request);
+        FollowedStatsDelta statsDelta = new FollowedStatsDelta().remove(toUpdate);
+        applyRequest(toUpdate, request);
 
-        // Mise à jour conditionnelle avec opérateur ternaire
-        toUpdate.setName(request.getName() != null ? request.getName() : toUpdate.getName());
-        toUpdate.setLevelType(
-                request.getLevelType() != null ? parseLevelType(request.getLevelType()) : toUpdate.getLevelType());
-        toUpdate.setLevelNumber(
-                request.getLevelNumber() != null ? request.getLevelNumber() : toUpdate.getLevelNumber());
-        toUpdate.setEpisodeNumber(
-                request.getEpisodeNumber() != null ? request.getEpisodeNumber() : toUpdate.getEpisodeNumber());
+        // Flushed so the view carries the updatedAt set by @PreUpdate and the new version
+        Followed updated;
+        try {
+            updated = followedRepository.saveAndFlush(toUpdate);
+        } catch (OptimisticLockingFailureException ex) {
+            throw concurrentModification(id);
+        }
+        statsService.apply(updated.getCreatedBy().getId(), statsDelta.add(updated));
+        String owner = updated.getCreatedBy().getUsername();
+        cacheInvalidator.evict(id, owner);
+        searchIndex.onSaved(owner, List.of(updated));
+        return toView(updated);
+    }
 
-        toUpdate.setUpdatedAt(Date.from(Instant.now()));
+    /**
+     * Sets or increments the level and episode numbers of a Followed entity with
+     * a single UPDATE statement, without loading the entity first: concurrent
+     * increments all apply.
+     * 
+     * @param id       - The ID of the Followed entity to update.
+     * @param progress - The new values or the increments.
+     * @param username - The username of the owner of the Followed entity.
+     * @return The view of the updated Followed entity.
+     * @throws CustomAuthException if a number would leave the integer range, or
+     *                             if the Followed entity does not exist or is
+     *                             not owned by the user.
+     */
+    @Transactional
+    public FollowedView updateFollowedProgress(Long id, FollowedProgress progress, String username) {
+        // A set episode number changes the statistics by its difference with the previous one
+        Optional<Integer> previousEpisode = progress.setEpisode()
+                ? followedRepository.lockEpisodeNumber(id, username)
+                : Optional.empty();
+        Optional<Followed> updated;
+        try {
+            updated = followedRepository.updateProgress(id, username,
+                    progress.setLevel(), progress.level(), progress.setEpisode(), progress.episode(), new Date());
+        } catch (DataIntegrityViolationException ex) {
+            // The increment overflowed the integer column
+            throw new CustomAuthException("Progress out of range.", 400);
+        }
+        Followed followed = updated.orElseThrow(() -> exceptionUtil.createNotFoundException("Followed", id));
+        statsService.apply(followed.getCreatedBy().getId(), new FollowedStatsDelta().addEpisodes(
+                progress.setEpisode() ? (long) progress.episode() - previousEpisode.orElse(0) : progress.episode()));
+        // Name and level type are untouched: the search index stays valid
+        cacheInvalidator.evict(id, username);
+        return toView(followed, username);
+    }
+
+    /**
+     * Creates several Followed entities for the same user in one transaction.
+     * Every request is checked before anything is written; rejected requests
+     * are reported without preventing the valid ones from being created.
+     * 
+     * @param requests - The data for the Followed entities.
+     * @param username - The username of the user creating the Followed entities.
+     * @return The result of each request, in the order of the requests.
+     * @throws CustomAuthException if the batch is empty or too large, or if the
+     *                             user is not found.
+     */
+    @Transactional
+    public List<FollowedBatchResult> createFollowedBatch(List<FollowedRequest> requests, String username) {
+        checkBatchSize(requests);
+        FollowedBatchResult[] results = new FollowedBatchResult[requests.size()];
+        List<Integer> validIndexes = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                validateRequest(requests.get(i));
+                validIndexes.add(i);
+            } catch (CustomAuthException ex) {
+                results[i] = FollowedBatchResult.rejected(i, null, ex.getMessage());
+            }
+        }
+
+        if (!validIndexes.isEmpty()) {
+            Users user = getUserByUsername(username);
+            List<Followed> toSave = new ArrayList<>(validIndexes.size());
+            for (int index : validIndexes) {
+                toSave.add(buildFollowed(requests.get(index), user));
+            }
+
+            // Ids come from the pooled sequence, so the inserts are sent as JDBC batches
+            List<Followed> saved = followedRepository.saveAll(toSave);
+            for (int i = 0; i < saved.size(); i++) {
+                int index = validIndexes.get(i);
+                results[index] = FollowedBatchResult.succeeded(index, saved.get(i).getId(), "CREATED");
+            }
+            FollowedStatsDelta statsDelta = new FollowedStatsDelta();
+            saved.forEach(statsDelta::add);
+            statsService.apply(user.getId(), statsDelta);
+            cacheInvalidator.evict(saved.stream().map(Followed::getId).toList(), username);
+            searchIndex.onSaved(username, saved);
+        }
+
+        return List.of(results);
+    }
+
+    /**
+     * Updates several Followed entities of the same user in one transaction.
+     * Each request must carry the ID of a Followed entity owned by the user; the
+     * entities are loaded with a single query and flushed as JDBC batches.
+     * 
+     * @param requests - The data to update the Followed entities with.
+     * @param username - The username of the owner of the Followed entities.
+     * @return The result of each request, in the order of the requests.
+     * @throws CustomAuthException if the batch is empty or too large, if the
+     *                             user is not found, or if an entity changed
+     *                             during the update.
+     */
+    @Transactional
+    public List<FollowedBatchResult> updateFollowedBatch(List<FollowedRequest> requests, String username) {
+        checkBatchSize(requests);
+        FollowedBatchResult[] results = new FollowedBatchResult[requests.size()];
+        List<Integer> validIndexes = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            FollowedRequest request = requests.get(i);
+            try {
+                Optional.ofNullable(request.getId())
+                        .orElseThrow(() -> new CustomAuthException("Id is required.", 400));
+                validateRequest(request);
+                validIndexes.add(i);
+            } catch (CustomAuthException ex) {
+                results[i] = FollowedBatchResult.rejected(i, request.getId(), ex.getMessage());
+            }
+        }
 
-        return followedRepository.save(toUpdate);
+        if (!validIndexes.isEmpty()) {
+            Users user = getUserByUsername(username);
+            for (int index : validIndexes) {
+                Long id = requests.get(index).getId();
+                absorbBufferedProgress(id, progressBuffer.discard(id, username));
+            }
+            Map<Long, Followed> owned = followedRepository.findByCreatedByAndIdIn(user,
+                    validIndexes.stream().map(index -> requests.get(index).getId()).toList())
+                    .stream()
+                    .collect(Collectors.toMap(Followed::getId, Function.identity()));
+
+            List<Followed> updated = new ArrayList<>(owned.size());
+            FollowedStatsDelta statsDelta = new FollowedStatsDelta();
+            for (int index : validIndexes) {
+                FollowedRequest request = requests.get(index);
+                Followed toUpdate = owned.get(request.getId());
+                if (toUpdate == null) {
+                    results[index] = FollowedBatchResult.rejected(index, request.getId(),
+                            exceptionUtil.createNotFoundException("Followed", request.getId()).getMessage());
+                    continue;
+                }
+                try {
+                    checkVersion(toUpdate, request);
+                } catch (CustomAuthException ex) {
+                    results[index] = FollowedBatchResult.rejected(index, request.getId(), ex.getMessage());
+                    continue;
+                }
+                // Managed entities: dirty checking sends the updates as JDBC batches
+                statsDelta.remove(toUpdate);
+                applyRequest(toUpdate, request);
+                statsDelta.add(toUpdate);
+                updated.add(toUpdate);
+                results[index] = FollowedBatchResult.succeeded(index, toUpdate.getId(), "UPDATED");
+            }
+            try {
+                followedRepository.flush();
+            } catch (OptimisticLockingFailureException ex) {
+                throw new CustomAuthException("Followed items were modified concurrently, reload them and retry.",
+                        409);
+            }
+            statsService.apply(user.getId(), statsDelta);
+            cacheInvalidator.evict(updated.stream().map(Followed::getId).toList(), username);
+            searchIndex.onSaved(username, updated);
+        }
+
+        return List.of(results);
     }
 
     /**
-     * Deletes a Followed entity by its ID.
+     * Deletes a Followed entity by its ID, leaving a tombstone for the delta
+     * sync in the same transaction.
      * 
      * @param id - The ID of the Followed entity to delete.
      * @throws CustomAuthException if the Followed entity with the given ID does not
@@ -133,8 +410,14 @@ public class FollowedService {
      */
     @Transactional
     public void deleteFollowed(Long id) {
-        Followed followed = getFollowedById(id);
+        Followed followed = findFollowed(id);
         followedRepository.delete(followed);
+        progressBuffer.discard(id);
+        tombstoneRepository.insert(id, followed.getCreatedBy().getId(), new Date());
+        statsService.apply(followed.getCreatedBy().getId(), new FollowedStatsDelta().remove(followed));
+        String owner = followed.getCreatedBy().getUsername();
+        cacheInvalidator.evict(id, owner);
+        searchIndex.onDeleted(owner, id);
     }
 
     /**
@@ -145,14 +428,205 @@ public class FollowedService {
      * @return The corresponding LevelType enum.
      * @throws CustomAuthException if the level type string is invalid.
      */
-    private LevelType parseLevelType(String levelTypeString) {
+    static LevelType parseLevelType(String levelTypeString) {
         try {
-            return LevelType.valueOf(levelTypeString.toUpperCase());
+            return LevelType.valueOf(levelTypeString.toUpperCase(Locale.ROOT));
         } catch (IllegalArgumentException ex) {
             throw new CustomAuthException("Invalid level type: " + levelTypeString, 400);
         }
     }
 
+    /**
+     * Checks that a request carries every field required to create or update a
+     * Followed entity, and that its level type is valid.
+     * 
+     * @param request - The data for the Followed entity.
+     * @throws CustomAuthException if a field is missing or invalid.
+     */
+    void validateRequest(FollowedRequest request) {
+        Optional.ofNullable(request.getName()).orElseThrow(() -> new CustomAuthException("Name is required.", 400));
+        Optional.ofNullable(request.getLevelType())
+                .orElseThrow(() -> new CustomAuthException("LevelType is required.", 400));
+        Optional.ofNullable(request.getLevelNumber())
+                .orElseThrow(() -> new CustomAuthException("LevelNumber is required.", 400));
+        Optional.ofNullable(request.getEpisodeNumber())
+                .orElseThrow(() -> new CustomAuthException("EpisodeNumber is required.", 400));
+        parseLevelType(request.getLevelType());
+        toCount(request.getLevelNumber(), "LevelNumber");
+        toCount(request.getEpisodeNumber(), "EpisodeNumber");
+    }
+
+    /**
+     * Converts a level or episode number of a request to the integer stored.
+     * 
+     * @param number - The number sent by the client, may be null.
+     * @param field  - The name of the field, for the error message.
+     * @return The number as an Integer, or null.
+     * @throws CustomAuthException if the number is not a whole number in the
+     *                             integer range.
+     */
+    static Integer toCount(Number number, String field) {
+        if (number == null || number instanceof Integer) {
+            return (Integer) number;
+        }
+        double value = number.doubleValue();
+        if (value != Math.rint(value) || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new CustomAuthException(field + " must be a whole number.", 400);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Accounts for the buffered progress updates of a Followed entity dropped
+     * before a full update, which is the latest state: the version still counts
+     * them, as clients may have read it through the buffer. Runs before the
+     * entity is loaded, so that it carries the new version.
+     * 
+     * @param id         - The ID of the Followed entity.
+     * @param superseded - The number of buffered updates dropped.
+     */
+    private void absorbBufferedProgress(Long id, int superseded) {
+        if (superseded > 0) {
+            followedRepository.incrementVersion(id, superseded);
+        }
+    }
+
+    /**
+     * Checks that the version of an update request, when given, is the current
+     * version of the Followed entity.
+     * 
+     * @param followed - The Followed entity to update.
+     * @param request  - The update request.
+     * @throws CustomAuthException if the entity changed since that version.
+     */
+    private void checkVersion(Followed followed, FollowedRequest request) {
+        if (request.getVersion() != null && !request.getVersion().equals(followed.getVersion())) {
+            throw concurrentModification(followed.getId());
+        }
+    }
+
+    private static CustomAuthException concurrentModification(Long id) {
+        return new CustomAuthException("Followed " + id + " was modified concurrently, reload it and retry.", 409);
+    }
+
+    /**
+     * Copies the fields of a request onto a Followed entity.
+     * 
+     * @param toUpdate - The Followed entity to update.
+     * @param request  - The data to update the Followed entity with.
+     */
+    private void applyRequest(Followed toUpdate, FollowedRequest request) {
+        // Mise à jour conditionnelle avec opérateur ternaire
+        toUpdate.setName(request.getName() != null ? request.getName() : toUpdate.getName());
+        toUpdate.setLevelType(
+                request.getLevelType() != null ? parseLevelType(request.getLevelType()) : toUpdate.getLevelType());
+        toUpdate.setLevelNumber(request.getLevelNumber() != null ? toCount(request.getLevelNumber(), "LevelNumber")
+                : toUpdate.getLevelNumber());
+        toUpdate.setEpisodeNumber(request.getEpisodeNumber() != null
+                ? toCount(request.getEpisodeNumber(), "EpisodeNumber")
+                : toUpdate.getEpisodeNumber());
+
+        toUpdate.setUpdatedAt(Date.from(Instant.now()));
+    }
+
+    /**
+     * Checks that a batch is neither empty nor larger than
+     * {@value #MAX_BATCH_SIZE} requests.
+     * 
+     * @param requests - The requests of the batch.
+     * @throws CustomAuthException if the batch size is invalid.
+     */
+    private void checkBatchSize(List<FollowedRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new CustomAuthException("Batch cannot be empty.", 400);
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new CustomAuthException("Batch cannot exceed " + MAX_BATCH_SIZE + " items.", 400);
+        }
+    }
+
+    /**
+     * Resolves the requested page size, falling back to the default and capping
+     * it to the maximum.
+     * 
+     * @param size - The requested page size, may be null.
+     * @return The page size to use.
+     * @throws CustomAuthException if the page size is not positive.
+     */
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1) {
+            throw new CustomAuthException("Page size must be positive.", 400);
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Builds a page from rows fetched with one extra element, the extra element
+     * only signalling that a next page exists.
+     * 
+     * @param rows     - The fetched rows, at most pageSize + 1.
+     * @param pageSize - The page size.
+     * @return The page with its next cursor, or a null cursor on the last page.
+     */
+    private CursorPage<FollowedView> toPage(List<FollowedView> rows, int pageSize) {
+        boolean hasNext = rows.size() > pageSize;
+        List<FollowedView> items = new ArrayList<>(hasNext ? rows.subList(0, pageSize) : rows);
+        return CursorPage.<FollowedView>builder()
+                .items(items)
+                .next(hasNext ? FollowedCursor.after(items.get(pageSize - 1)).encode() : null)
+                .build();
+    }
+
+    /**
+     * Loads the managed Followed entity with the given ID, for the write paths.
+     * 
+     * @param id - The ID of the Followed entity to load.
+     * @return The Followed entity with the specified ID.
+     * @throws CustomAuthException if the Followed entity with the given ID does not
+     *                             exist.
+     */
+    private Followed findFollowed(Long id) {
+        return followedRepository.findById(id)
+                .orElseThrow(() -> exceptionUtil.createNotFoundException("Followed", id));
+    }
+
+    /**
+     * Builds the view returned by the API from a Followed entity, inside the
+     * transaction that loaded it.
+     * 
+     * @param followed - The Followed entity.
+     * @return The view of the Followed entity.
+     */
+    private FollowedView toView(Followed followed) {
+        return toView(followed, followed.getCreatedBy().getUsername());
+    }
+
+    /**
+     * Builds the view returned by the API from a Followed entity whose owner's
+     * username is already known, without loading the owner.
+     * 
+     * @param followed      - The Followed entity.
+     * @param ownerUsername - The username of the owner.
+     * @return The view of the Followed entity.
+     */
+    private FollowedView toView(Followed followed, String ownerUsername) {
+        return FollowedView.builder()
+                .id(followed.getId())
+                .name(followed.getName())
+                .levelType(followed.getLevelType())
+                .levelNumber(followed.getLevelNumber())
+                .episodeNumber(followed.getEpisodeNumber())
+                .createdAt(followed.getCreatedAt())
+                .updatedAt(followed.getUpdatedAt())
+                .version(followed.getVersion())
+                .ownerId(followed.getCreatedBy().getId())
+                .ownerUsername(ownerUsername)
+                .build();
+    }
+
     /**
      * Retrieves a user by their username.
      * 
@@ -174,16 +648,27 @@ public class FollowedService {
      * @return The saved Followed entity.
      */
     private Followed saveFollowed(FollowedRequest request, Users user) {
+        return followedRepository.save(buildFollowed(request, user));
+    }
+
+    /**
+     * Builds a new, not yet persisted, Followed entity with the provided request
+     * data and user.
+     * 
+     * @param request - The data for the Followed entity.
+     * @param user    - The user creating the Followed entity.
+     * @return The new Followed entity.
+     */
+    Followed buildFollowed(FollowedRequest request, Users user) {
         var currentInstant = Instant.now();
-        Followed followed = Followed.builder()
+        return Followed.builder()
                 .name(request.getName())
                 .createdBy(user)
                 .levelType(parseLevelType(request.getLevelType()))
-                .levelNumber(request.getLevelNumber())
-                .episodeNumber(request.getEpisodeNumber())
+                .levelNumber(toCount(request.getLevelNumber(), "LevelNumber"))
+                .episodeNumber(toCount(request.getEpisodeNumber(), "EpisodeNumber"))
                 .createdAt(Date.from(currentInstant))
                 .updatedAt(Date.from(currentInstant))
                 .build();
-        return followedRepository.save(followed);
     }
 }
@@ -0,0 +1,59 @@
+package web.rempro_api.followed;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import web.rempro_api.utils.enums.LevelType;
+
+/**
+ * Aggregate of a user's Followed list, updated by each write of the list
+ * rather than computed from it on each read.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(name = "followed_stats")
+public class FollowedStats {
+
+    // Plain column rather than an association: only ever read by key
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private long movieCount;
+
+    @Column(nullable = false)
+    private long animeCount;
+
+    @Column(nullable = false)
+    private long seriesCount;
+
+    @Column(nullable = false)
+    private long webtoonCount;
+
+    @Column(nullable = false)
+    private long totalEpisodes;
+
+    /**
+     * Returns the number of Followed entities of a level type.
+     *
+     * @param levelType - The level type.
+     * @return The number of Followed entities of that type.
+     */
+    public long count(LevelType levelType) {
+        return switch (levelType) {
+            case MOVIE -> movieCount;
+            case ANIME -> animeCount;
+            case SERIES -> seriesCount;
+            case WEBTOON -> webtoonCount;
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package web.rempro_api.followed;
+
+import web.rempro_api.utils.enums.LevelType;
+
+/**
+ * Change of a user's {@link FollowedStats} made by one transaction, summed up
+ * before being written with a single UPDATE.
+ */
+final class FollowedStatsDelta {
+
+    private final long[] counts = new long[LevelType.values().length];
+    private long episodes;
+
+    /**
+     * Counts a Followed entity created, or its state after an update.
+     *
+     * @param followed - The Followed entity.
+     * @return This delta.
+     */
+    FollowedStatsDelta add(Followed followed) {
+        return count(followed, 1);
+    }
+
+    /**
+     * Discounts a Followed entity deleted, or its state before an update. Must
+     * be called before the entity changes.
+     *
+     * @param followed - The Followed entity.
+     * @return This delta.
+     */
+    FollowedStatsDelta remove(Followed followed) {
+        return count(followed, -1);
+    }
+
+    /**
+     * Counts a change of episode number that left the level type untouched.
+     *
+     * @param delta - The difference between the new and the old episode number.
+     * @return This delta.
+     */
+    FollowedStatsDelta addEpisodes(long delta) {
+        episodes += delta;
+        return this;
+    }
+
+    long count(LevelType levelType) {
+        return counts[levelType.ordinal()];
+    }
+
+    long episodes() {
+        return episodes;
+    }
+
+    boolean isEmpty() {
+        for (long count : counts) {
+            if (count != 0) {
+                return false;
+            }
+        }
+        return episodes == 0;
+    }
+
+    private FollowedStatsDelta count(Followed followed, int sign) {
+        if (followed.getLevelType() != null) {
+            counts[followed.getLevelType().ordinal()] += sign;
+        }
+        if (followed.getEpisodeNumber() != null) {
+            episodes += (long) sign * followed.getEpisodeNumber();
+        }
+        return this;
+    }
+}
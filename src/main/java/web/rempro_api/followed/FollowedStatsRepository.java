@@ -0,0 +1,68 @@
+package web.rempro_api.followed;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+
+public interface FollowedStatsRepository extends JpaRepository<FollowedStats, Long> {
+
+    // Flushes the pending writes of followed first: their row locks are always taken before the stats row one
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE FollowedStats s
+            SET s.movieCount = s.movieCount + :movie,
+                s.animeCount = s.animeCount + :anime,
+                s.seriesCount = s.seriesCount + :series,
+                s.webtoonCount = s.webtoonCount + :webtoon,
+                s.totalEpisodes = s.totalEpisodes + :episodes
+            WHERE s.userId = :userId""")
+    int addDelta(@Param("userId") Long userId, @Param("movie") long movie, @Param("anime") long anime,
+            @Param("series") long series, @Param("webtoon") long webtoon, @Param("episodes") long episodes);
+
+    // First row of a user, computed from the list including the caller's flushed writes; a concurrent
+    // transaction creating it first wins, and the caller then adds its delta to that row. An empty list
+    // gets no row: read as zeros
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO followed_stats (user_id, movie_count, anime_count, series_count, webtoon_count, total_episodes)
+            SELECT :userId,
+                   COUNT(CASE WHEN f.level_type = 'MOVIE' THEN 1 END),
+                   COUNT(CASE WHEN f.level_type = 'ANIME' THEN 1 END),
+                   COUNT(CASE WHEN f.level_type = 'SERIES' THEN 1 END),
+                   COUNT(CASE WHEN f.level_type = 'WEBTOON' THEN 1 END),
+                   COALESCE(SUM(f.episode_number), 0)
+            FROM followed f
+            WHERE f.user_id = :userId
+            HAVING COUNT(*) > 0
+            ON CONFLICT DO NOTHING""", nativeQuery = true)
+    int insertComputed(@Param("userId") Long userId);
+
+    // Waits for the transactions writing the user's list, so that a recount made afterwards includes them
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM FollowedStats s WHERE s.userId = :userId")
+    Optional<FollowedStats> findForUpdate(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = """
+            UPDATE followed_stats s
+            SET movie_count = c.movie_count, anime_count = c.anime_count, series_count = c.series_count,
+                webtoon_count = c.webtoon_count, total_episodes = c.total_episodes
+            FROM (SELECT COUNT(*) FILTER (WHERE f.level_type = 'MOVIE') AS movie_count,
+                         COUNT(*) FILTER (WHERE f.level_type = 'ANIME') AS anime_count,
+                         COUNT(*) FILTER (WHERE f.level_type = 'SERIES') AS series_count,
+                         COUNT(*) FILTER (WHERE f.level_type = 'WEBTOON') AS webtoon_count,
+                         COALESCE(SUM(f.episode_number), 0) AS total_episodes
+                  FROM followed f
+                  WHERE f.user_id = :userId) c
+            WHERE s.user_id = :userId
+              AND (s.movie_count, s.anime_count, s.series_count, s.webtoon_count, s.total_episodes)
+                  IS DISTINCT FROM (c.movie_count, c.anime_count, c.series_count, c.webtoon_count, c.total_episodes)""",
+            nativeQuery = true)
+    int recompute(@Param("userId") Long userId);
+}
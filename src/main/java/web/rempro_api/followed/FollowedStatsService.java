@@ -0,0 +1,174 @@
+package web.rempro_api.followed;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import web.rempro_api.users.Users;
+import web.rempro_api.users.UsersRepository;
+import web.rempro_api.utils.datasource.ReplicaRoutingDataSource;
+import web.rempro_api.utils.dto.FollowedStatsSummary;
+import web.rempro_api.utils.enums.LevelType;
+import web.rempro_api.utils.exception.CustomAuthException;
+import web.rempro_api.utils.exception.ExceptionAuthUtil;
+
+/**
+ * Service class maintaining and serving the statistics of each user's
+ * Followed list.
+ * <p>
+ * Every write of the list adds its delta to the user's {@link FollowedStats}
+ * row in its own transaction, so reading the statistics never scans the list.
+ * A user without a row has no Followed entity, or has not written since the
+ * table was created: the first delta then computes the row from the list. The
+ * rebuild job recomputes every row, to repair writes that were not counted.
+ */
+@Service
+public class FollowedStatsService {
+
+    private final FollowedStatsRepository statsRepository;
+    private final FollowedRepository followedRepository;
+    private final UsersRepository usersRepository;
+    private final ExceptionAuthUtil exceptionUtil;
+    private final FollowedCacheInvalidator cacheInvalidator;
+    private final TransactionTemplate transactionTemplate;
+    private final int recentItems;
+    private final Counter repaired;
+
+    public FollowedStatsService(FollowedStatsRepository statsRepository,
+            FollowedRepository followedRepository,
+            UsersRepository usersRepository,
+            ExceptionAuthUtil exceptionUtil,
+            FollowedCacheInvalidator cacheInvalidator,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry registry,
+            @Value("${rempro.stats.recent-items:5}") int recentItems) {
+        this.statsRepository = statsRepository;
+        this.followedRepository = followedRepository;
+        this.usersRepository = usersRepository;
+        this.exceptionUtil = exceptionUtil;
+        this.cacheInvalidator = cacheInvalidator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recentItems = recentItems;
+        this.repaired = Counter.builder("rempro.stats.repaired")
+                .description("Followed statistics found wrong and recomputed by the rebuild job")
+                .register(registry);
+    }
+
+    /**
+     * Retrieves the statistics of a user's Followed list.
+     *
+     * @param username - The owner of the Followed entities.
+     * @return The number of Followed entities per level type and in total, the
+     *         sum of their episode numbers and the most recently updated ones.
+     * @throws CustomAuthException if the user is not found.
+     */
+    @Transactional(readOnly = true)
+    public FollowedStatsSummary getStats(String username) {
+        // Kept by clients under the ETag read before: not from a replica behind it
+        return ReplicaRoutingDataSource.readFresh(FollowedCacheInvalidator.ownerReadKey(username),
+                () -> loadStats(username));
+    }
+
+    private FollowedStatsSummary loadStats(String username) {
+        Users user = usersRepository.findByUsername(username)
+                .orElseThrow(() -> exceptionUtil.createNotFoundException("User", username));
+        FollowedStats stats = statsRepository.findById(user.getId())
+                .orElseGet(() -> FollowedStats.builder().userId(user.getId()).build());
+
+        Map<LevelType, Long> countByLevelType = new EnumMap<>(LevelType.class);
+        long total = 0;
+        for (LevelType levelType : LevelType.values()) {
+            countByLevelType.put(levelType, stats.count(levelType));
+            total += stats.count(levelType);
+        }
+        return FollowedStatsSummary.builder()
+                .countByLevelType(countByLevelType)
+                .total(total)
+                .totalEpisodes(stats.getTotalEpisodes())
+                .recentlyUpdated(followedRepository.findFirstPageByCreatedBy(user, Limit.of(recentItems)))
+                .build();
+    }
+
+    /**
+     * Computes the strong ETag of a user's statistics from the user's listing
+     * version, which every write of the list bumps.
+     *
+     * @param username - The owner of the Followed entities.
+     * @return The quoted entity tag.
+     */
+    public String getStatsETag(String username) {
+        return "\"" + cacheInvalidator.ownerVersion(username) + "-stats\"";
+    }
+
+    /**
+     * Adds the delta of a write to the statistics of its user. Must run in the
+     * transaction of the write, after the write.
+     *
+     * @param userId - The ID of the owner of the Followed entities written.
+     * @param delta  - The change of the statistics.
+     */
+    void apply(Long userId, FollowedStatsDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        // No row yet: computed from the list, this write included; lost the race to create it, add to it
+        if (addDelta(userId, delta) == 0 && statsRepository.insertComputed(userId) == 0) {
+            addDelta(userId, delta);
+        }
+    }
+
+    /**
+     * Adds the deltas of writes of several users, in the order of the user IDs
+     * so that concurrent callers lock the rows in the same order.
+     *
+     * @param deltas - The change of the statistics of each user, by user ID.
+     */
+    void apply(Map<Long, FollowedStatsDelta> deltas) {
+        new TreeMap<>(deltas).forEach(this::apply);
+    }
+
+    /**
+     * Recomputes the statistics of every user from their Followed list, each in
+     * a transaction of its own, and drops the cached listing tags of the users
+     * whose statistics were wrong.
+     */
+    @Scheduled(cron = "${rempro.stats.rebuild-cron:0 0 4 * * *}")
+    public void rebuild() {
+        for (Users user : usersRepository.findAll()) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> rebuild(user.getId())))) {
+                repaired.increment();
+                cacheInvalidator.evictOwner(user.getUsername());
+            }
+        }
+    }
+
+    /**
+     * Recomputes the statistics of one user. The row is locked first: writes
+     * committed before the lock is granted are then all counted, and writes
+     * committing later add their delta to the recomputed row.
+     *
+     * @param userId - The ID of the user.
+     * @return Whether the statistics were wrong.
+     */
+    private boolean rebuild(Long userId) {
+        if (statsRepository.findForUpdate(userId).isEmpty()) {
+            return statsRepository.insertComputed(userId) > 0;
+        }
+        return statsRepository.recompute(userId) > 0;
+    }
+
+    private int addDelta(Long userId, FollowedStatsDelta delta) {
+        return statsRepository.addDelta(userId, delta.count(LevelType.MOVIE), delta.count(LevelType.ANIME),
+                delta.count(LevelType.SERIES), delta.count(LevelType.WEBTOON), delta.episodes());
+    }
+}
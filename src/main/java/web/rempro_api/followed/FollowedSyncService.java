@@ -0,0 +1,154 @@
+package web.rempro_api.followed;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import web.rempro_api.users.Users;
+import web.rempro_api.users.UsersRepository;
+import web.rempro_api.utils.dto.FollowedChanges;
+import web.rempro_api.utils.dto.FollowedView;
+import web.rempro_api.utils.exception.CustomAuthException;
+import web.rempro_api.utils.datasource.ReplicaRoutingDataSource;
+import web.rempro_api.utils.exception.ExceptionAuthUtil;
+
+/**
+ * Service class serving the incremental sync of a user's Followed list: the
+ * items created or updated and the IDs deleted since a watermark.
+ * <p>
+ * Update times are set by the application before the transaction commits, so
+ * a change can become visible with a time older than a watermark already
+ * handed out. Each sync run therefore restarts from the start time of the
+ * previous run minus {@code rempro.sync.overlap}: changes inside that window
+ * are sent twice, which clients absorb by applying them as upserts. The
+ * overlap must exceed the longest write transaction.
+ */
+@Service
+public class FollowedSyncService {
+
+    private final FollowedRepository followedRepository;
+    private final FollowedTombstoneRepository tombstoneRepository;
+    private final UsersRepository usersRepository;
+    private final ExceptionAuthUtil exceptionUtil;
+    private final Duration overlap;
+    private final Duration tombstoneRetention;
+    private final int pageSize;
+    private final int maxDeletions;
+
+    public FollowedSyncService(FollowedRepository followedRepository,
+            FollowedTombstoneRepository tombstoneRepository,
+            UsersRepository usersRepository,
+            ExceptionAuthUtil exceptionUtil,
+            @Value("${rempro.sync.overlap:5s}") Duration overlap,
+            @Value("${rempro.sync.tombstone-retention:30d}") Duration tombstoneRetention,
+            @Value("${rempro.sync.page-size:500}") int pageSize,
+            @Value("${rempro.sync.max-deletions:5000}") int maxDeletions) {
+        this.followedRepository = followedRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.usersRepository = usersRepository;
+        this.exceptionUtil = exceptionUtil;
+        this.overlap = overlap;
+        this.tombstoneRetention = tombstoneRetention;
+        this.pageSize = pageSize;
+        this.maxDeletions = maxDeletions;
+    }
+
+    /**
+     * Retrieves the changes of a user's Followed list since a watermark. The
+     * deletions are returned on the first page of a run; the updates are paged
+     * oldest first, with {@code hasMore} set while pages remain.
+     *
+     * @param username - The owner of the Followed entities.
+     * @param since    - The watermark returned by the previous call, or null to
+     *                 get a first watermark.
+     * @return The changes and the watermark to send on the next call, or a
+     *         full resync request when the deletions since the watermark are no
+     *         longer all known.
+     * @throws CustomAuthException if the watermark is malformed or if the user
+     *                             is not found.
+     */
+    @Transactional(readOnly = true)
+    public FollowedChanges getChanges(String username, String since) {
+        // A replica behind the user's last write would hand out a watermark past rows it does not have yet
+        return ReplicaRoutingDataSource.readFresh(FollowedCacheInvalidator.ownerReadKey(username),
+                () -> changesSince(username, since));
+    }
+
+    private FollowedChanges changesSince(String username, String since) {
+        long now = System.currentTimeMillis();
+        long safeFloor = now - overlap.toMillis();
+        Users user = usersRepository.findByUsername(username)
+                .orElseThrow(() -> exceptionUtil.createNotFoundException("User", username));
+
+        if (since == null) {
+            return fullResync(safeFloor);
+        }
+        FollowedSyncToken token = FollowedSyncToken.decode(since);
+        // Tombstones older than the retention may be purged already
+        if (token.floor() < now - tombstoneRetention.toMillis()) {
+            return fullResync(safeFloor);
+        }
+
+        List<Long> deleted = List.of();
+        List<FollowedView> rows;
+        long nextFloor;
+        if (token.isRunStart()) {
+            deleted = tombstoneRepository.findDeletedIdsSince(user.getId(), new Date(token.floor()),
+                    Limit.of(maxDeletions + 1));
+            if (deleted.size() > maxDeletions) {
+                return fullResync(safeFloor);
+            }
+            rows = followedRepository.findChangesByCreatedByAfter(user, new Date(token.floor()), Long.MIN_VALUE,
+                    Limit.of(pageSize + 1));
+            nextFloor = Math.max(token.floor(), safeFloor);
+        } else {
+            rows = followedRepository.findChangesByCreatedByAfter(user, token.updatedAt(), token.id(),
+                    Limit.of(pageSize + 1));
+            nextFloor = token.floor();
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<FollowedView> updated = new ArrayList<>(hasMore ? rows.subList(0, pageSize) : rows);
+        FollowedSyncToken next = hasMore
+                ? FollowedSyncToken.after(nextFloor, updated.get(pageSize - 1))
+                : FollowedSyncToken.start(nextFloor);
+        return FollowedChanges.builder()
+                .updated(updated)
+                .deleted(deleted)
+                .watermark(next.encode())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Deletes the tombstones older than the retention. Watermarks older than the
+     * retention get a full resync instead of an incomplete list of deletions.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${rempro.sync.purge-interval:PT1H}", initialDelayString = "PT1M")
+    public void purgeTombstones() {
+        tombstoneRepository.deleteOlderThan(new Date(System.currentTimeMillis() - tombstoneRetention.toMillis()));
+    }
+
+    /**
+     * Builds the answer asking the client to reload its whole list.
+     *
+     * @param floor - The floor of the watermark to sync from after the reload.
+     * @return The changes carrying only the new watermark.
+     */
+    private FollowedChanges fullResync(long floor) {
+        return FollowedChanges.builder()
+                .updated(List.of())
+                .deleted(List.of())
+                .watermark(FollowedSyncToken.start(floor).encode())
+                .fullResync(true)
+                .build();
+    }
+}
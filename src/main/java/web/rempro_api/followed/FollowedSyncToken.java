@@ -0,0 +1,80 @@
+package web.rempro_api.followed;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import web.rempro_api.utils.dto.FollowedView;
+import web.rempro_api.utils.exception.CustomAuthException;
+
+/**
+ * Opaque watermark of the delta sync. {@code floor} is the update time, in
+ * epoch milliseconds, from which the next sync run starts; while a run is
+ * paged, {@code updatedAt} and {@code id} point right after the last change
+ * returned. The encoded form is URL-safe Base64, like {@link FollowedCursor}.
+ */
+record FollowedSyncToken(long floor, Date updatedAt, Long id) {
+
+    /**
+     * Builds the token starting a sync run at the given floor.
+     *
+     * @param floor - The update time from which changes are returned.
+     * @return The token of the run.
+     */
+    static FollowedSyncToken start(long floor) {
+        return new FollowedSyncToken(floor, null, null);
+    }
+
+    /**
+     * Builds the token of the next page of a sync run.
+     *
+     * @param floor - The floor of the run that follows this one.
+     * @param last  - The last change of the current page.
+     * @return The token of the next page.
+     */
+    static FollowedSyncToken after(long floor, FollowedView last) {
+        return new FollowedSyncToken(floor, last.getUpdatedAt(), last.getId());
+    }
+
+    /**
+     * Tells whether the token starts a sync run rather than continuing one.
+     *
+     * @return true on the first page of a run.
+     */
+    boolean isRunStart() {
+        return id == null;
+    }
+
+    /**
+     * Encodes the token into its opaque string form.
+     *
+     * @return The URL-safe representation of the token.
+     */
+    String encode() {
+        String raw = isRunStart() ? Long.toString(floor) : floor + ":" + updatedAt.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token previously returned by {@link #encode()}.
+     *
+     * @param token - The opaque token sent by the client.
+     * @return The decoded token.
+     * @throws CustomAuthException if the token is malformed.
+     */
+    static FollowedSyncToken decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (parts.length == 1) {
+                return start(Long.parseLong(parts[0]));
+            }
+            if (parts.length == 3) {
+                return new FollowedSyncToken(Long.parseLong(parts[0]), new Date(Long.parseLong(parts[1])),
+                        Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException ex) {
+            // Reported below
+        }
+        throw new CustomAuthException("Invalid watermark: " + token, 400);
+    }
+}
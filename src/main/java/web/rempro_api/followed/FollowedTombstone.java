@@ -0,0 +1,36 @@
+package web.rempro_api.followed;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Trace of a deleted Followed entity, so that clients syncing their list
+ * incrementally learn about the deletion.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(name = "followed_tombstone")
+public class FollowedTombstone {
+
+    @Id
+    @Column(name = "followed_id")
+    private Long followedId;
+
+    // Plain column rather than an association: only ever filtered on
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Date deletedAt;
+}
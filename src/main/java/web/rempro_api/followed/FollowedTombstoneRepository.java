@@ -0,0 +1,30 @@
+package web.rempro_api.followed;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface FollowedTombstoneRepository extends JpaRepository<FollowedTombstone, Long> {
+
+    // Plain insert: the id is assigned, so save() would first select it to choose between persist and merge
+    @Modifying
+    @Query(value = "INSERT INTO followed_tombstone (followed_id, user_id, deleted_at) VALUES (:followedId, :userId, :deletedAt)",
+            nativeQuery = true)
+    void insert(@Param("followedId") Long followedId, @Param("userId") Long userId,
+            @Param("deletedAt") Date deletedAt);
+
+    @Query("""
+            SELECT t.followedId FROM FollowedTombstone t
+            WHERE t.userId = :userId AND t.deletedAt >= :since
+            ORDER BY t.deletedAt""")
+    List<Long> findDeletedIdsSince(@Param("userId") Long userId, @Param("since") Date since, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM FollowedTombstone t WHERE t.deletedAt < :before")
+    int deleteOlderThan(@Param("before") Date before);
+}
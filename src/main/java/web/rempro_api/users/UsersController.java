@@ -26,7 +26,8 @@ public class UsersController {
             @ApiResponse(responseCode = "200", description = "Password updated successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input data"),
             @ApiResponse(responseCode = "403", description = "Current password is incorrect"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "Too many authentication requests, see Retry-After")
     })
     @PutMapping("/update-password")
     public ResponseEntity<String> updatePassword(
@@ -44,7 +45,8 @@ public class UsersController {
             @ApiResponse(responseCode = "204", description = "User account deleted successfully"),
             @ApiResponse(responseCode = "403", description = "Password is incorrect"),
             @ApiResponse(responseCode = "404", description = "User not found"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "Too many authentication requests, see Retry-After")
     })
     @DeleteMapping("/delete-account")
     public ResponseEntity<Void> deleteUserAccount(
@@ -4,8 +4,11 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface UsersRepository extends JpaRepository<Users, Long>{
+	// Read-only so that a replica can serve the login lookup
+	@Transactional(readOnly = true)
 	Optional<Users> findByUsername(String username);
 	List<Users> findByRole(Role role);
 	boolean existsByUsername(String username);
@@ -1,8 +1,15 @@
 package web.rempro_api.users;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import web.rempro_api.auth.RefreshTokenService;
+import web.rempro_api.utils.cache.CacheChange;
+import web.rempro_api.utils.cache.CacheInvalidationBus;
+import web.rempro_api.utils.config.CacheConfig;
+import web.rempro_api.utils.datasource.ReplicaRoutingDataSource;
 import web.rempro_api.utils.exception.CustomAuthException;
 import web.rempro_api.utils.exception.ExceptionAuthUtil;
 import lombok.RequiredArgsConstructor;
@@ -20,9 +27,13 @@ public class UsersService {
     private final UsersRepository usersRepository;
     private final PasswordEncoder passwordEncoder;
     private final ExceptionAuthUtil exceptionUtil;
+    private final UserCache userCache;
+    private final CacheInvalidationBus cacheBus;
+    private final RefreshTokenService refreshTokenService;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRouting;
 
     /**
-     * Updates a user's password.
+     * Updates a user's password and ends the sessions of their refresh tokens.
      *
      * @param username        The username of the user whose password is to be updated.
      * @param currentPassword The current password of the user.
@@ -41,6 +52,10 @@ public class UsersService {
         var encodedNewPassword = passwordEncoder.encode(newPassword);
         user.setPassword(encodedNewPassword);
         usersRepository.save(user);
+        evictUser(username);
+        cacheBus.publish(new CacheChange(CacheChange.Kind.USER, username, List.of()));
+        // Les autres sessions doivent se reconnecter avec le nouveau mot de passe
+        refreshTokenService.revokeAll(user.getId());
     }
 
     /**
@@ -60,6 +75,8 @@ public class UsersService {
         }
 
         usersRepository.delete(user);
+        evictUser(username);
+        cacheBus.publish(new CacheChange(CacheChange.Kind.USER, username, List.of()));
     }
 
     /**
@@ -91,4 +108,15 @@ public class UsersService {
         };
         return usersRepository.findByRole(roleEnum);
     }
+
+    /**
+     * Drops a changed user from the user details cache, and keeps its next
+     * lookups off a replica that has not replayed the change.
+     *
+     * @param username The username of the changed user.
+     */
+    private void evictUser(String username) {
+        userCache.removeUserFromCache(username);
+        replicaRouting.ifAvailable(routing -> routing.markWrittenAfterCommit(CacheConfig.userReadKey(username)));
+    }
 }
@@ -0,0 +1,27 @@
+package web.rempro_api.utils.cache;
+
+import java.util.List;
+
+/**
+ * Change published by a node so that the others evict what they cached about
+ * it.
+ *
+ * @param kind    - What changed.
+ * @param subject - The username of the owner for Followed changes, of the user
+ *                for user ones, the {@code jti} of a revoked token.
+ * @param ids     - The IDs of the written Followed entities, the expiration in
+ *                milliseconds of a revoked token, empty for the other kinds.
+ */
+public record CacheChange(Kind kind, String subject, List<Long> ids) {
+
+    public enum Kind {
+        // Followed entities were written: their views and their owner's listings are stale
+        FOLLOWED,
+        // Only the listings and statistics of the owner are stale
+        OWNER,
+        // The user itself changed or was deleted
+        USER,
+        // A token was revoked before its expiration
+        TOKEN
+    }
+}
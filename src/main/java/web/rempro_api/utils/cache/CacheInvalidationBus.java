@@ -0,0 +1,297 @@
+package web.rempro_api.utils.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cross-node cache invalidation over PostgreSQL LISTEN/NOTIFY
+ * ({@code rempro.cache-bus.enabled}).
+ * <p>
+ * The write paths publish their {@link CacheChange}s with {@code pg_notify} in
+ * their own transaction: PostgreSQL delivers them when it commits and drops
+ * them if it rolls back, so no node evicts before the write is visible on the
+ * primary and no committed write goes unpublished. A replica may still lag
+ * behind the notification: the listeners mark the changes so that the reads
+ * refilling the caches wait for the replica to replay them
+ * ({@link web.rempro_api.utils.datasource.ReplicaRoutingDataSource#readFresh}).
+ * Each node listens on a dedicated connection to the primary and hands the
+ * changes of the other nodes to the {@link CacheInvalidationListener}s.
+ * <p>
+ * Notifications sent while a node is not listening are lost: the node then
+ * evicts everything when the connection drops, while it reconnects, and once
+ * it listens again.
+ */
+@Component
+public class CacheInvalidationBus implements SmartLifecycle {
+
+    // NOTIFY payloads are limited to 8000 bytes
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final Duration MIN_RECONNECT_DELAY = Duration.ofSeconds(1);
+
+    private final boolean enabled;
+    private final String channel;
+    private final Duration heartbeat;
+    private final Duration maxReconnectDelay;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectProvider<CacheInvalidationListener> listeners;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread thread;
+
+    private final Counter received;
+    private final Counter gaps;
+    private final Counter publishFailures;
+
+    public CacheInvalidationBus(
+            @Value("${rempro.cache-bus.enabled:true}") boolean enabled,
+            @Value("${rempro.cache-bus.channel:rempro_cache}") String channel,
+            @Value("${rempro.cache-bus.heartbeat:10s}") Duration heartbeat,
+            @Value("${rempro.cache-bus.max-reconnect-delay:10s}") Duration maxReconnectDelay,
+            JdbcTemplate jdbcTemplate,
+            DataSourceProperties dataSourceProperties,
+            ObjectProvider<CacheInvalidationListener> listeners,
+            MeterRegistry registry) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid cache bus channel: " + channel);
+        }
+        this.enabled = enabled;
+        this.channel = channel;
+        this.heartbeat = heartbeat;
+        this.maxReconnectDelay = maxReconnectDelay;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.listeners = listeners;
+
+        Gauge.builder("rempro.cache.bus.connected", this, bus -> bus.connection != null ? 1 : 0)
+                .description("Whether the node listens to the changes of the other nodes")
+                .register(registry);
+        this.received = Counter.builder("rempro.cache.bus.received")
+                .description("Changes received from the other nodes")
+                .register(registry);
+        this.gaps = Counter.builder("rempro.cache.bus.gaps")
+                .description("Full evictions after changes may have been missed")
+                .register(registry);
+        this.publishFailures = Counter.builder("rempro.cache.bus.publish.failures")
+                .description("Changes made outside of a transaction that could not be published")
+                .register(registry);
+    }
+
+    /**
+     * Publishes a change to the other nodes: when the current transaction
+     * commits, or right away outside of a transaction.
+     *
+     * @param change - The change.
+     */
+    public void publish(CacheChange change) {
+        if (!enabled) {
+            return;
+        }
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        for (String payload : encode(change)) {
+            try {
+                jdbcTemplate.query("SELECT pg_notify(?, ?)", row -> {
+                }, channel, payload);
+            } catch (DataAccessException ex) {
+                if (inTransaction) {
+                    // The write cannot commit either: nothing to publish
+                    throw ex;
+                }
+                publishFailures.increment();
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::listen, "cache-invalidation-bus");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeQuietly(connection);
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Listens until stopped, reconnecting with a growing delay.
+     */
+    private void listen() {
+        Duration delay = MIN_RECONNECT_DELAY;
+        while (running) {
+            try (Connection listening = connect()) {
+                try (Statement statement = listening.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                connection = listening;
+                // Changes published before LISTEN took effect were not received
+                gap();
+                delay = MIN_RECONNECT_DELAY;
+                receive(listening);
+            } catch (SQLException ex) {
+                connection = null;
+                if (!running) {
+                    return;
+                }
+                gap();
+                try {
+                    Thread.sleep(delay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                delay = delay.multipliedBy(2).compareTo(maxReconnectDelay) > 0 ? maxReconnectDelay
+                        : delay.multipliedBy(2);
+            }
+        }
+    }
+
+    private void receive(Connection listening) throws SQLException {
+        PGConnection postgres = listening.unwrap(PGConnection.class);
+        long nextHeartbeat = System.nanoTime() + heartbeat.toNanos();
+        while (running) {
+            PGNotification[] notifications = postgres.getNotifications((int) heartbeat.toMillis());
+            if (notifications != null) {
+                Arrays.stream(notifications).forEach(notification -> dispatch(notification.getParameter()));
+            }
+            // A dead connection just times out: only a query notices it
+            if (System.nanoTime() - nextHeartbeat >= 0) {
+                try (Statement statement = listening.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+                nextHeartbeat = System.nanoTime() + heartbeat.toNanos();
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        if (dataSourceProperties.determineUsername() != null) {
+            properties.setProperty("user", dataSourceProperties.determineUsername());
+        }
+        if (dataSourceProperties.determinePassword() != null) {
+            properties.setProperty("password", dataSourceProperties.determinePassword());
+        }
+        properties.setProperty("ApplicationName", "rempro-cache-bus");
+        properties.setProperty("connectTimeout", "10");
+        properties.setProperty("socketTimeout", String.valueOf(Math.max(1, heartbeat.multipliedBy(3).toSeconds())));
+        properties.setProperty("tcpKeepAlive", "true");
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(), properties);
+    }
+
+    private void dispatch(String payload) {
+        CacheChange change;
+        try {
+            change = decode(payload);
+        } catch (RuntimeException ex) {
+            gap();
+            return;
+        }
+        if (change == null) {
+            return;
+        }
+        received.increment();
+        try {
+            listeners.orderedStream().forEach(listener -> listener.onRemoteChange(change));
+        } catch (RuntimeException ex) {
+            gap();
+        }
+    }
+
+    private void gap() {
+        gaps.increment();
+        listeners.orderedStream().forEach(CacheInvalidationListener::onGap);
+    }
+
+    /**
+     * Encodes a change as {@code <kind><node>|<ids>|<subject>}, split into
+     * several payloads when its IDs do not fit in one.
+     */
+    private List<String> encode(CacheChange change) {
+        String head = change.kind().name().charAt(0) + nodeId + "|";
+        String tail = "|" + change.subject();
+        int fixedBytes = (head + tail).getBytes(StandardCharsets.UTF_8).length;
+        List<String> payloads = new ArrayList<>();
+        StringBuilder ids = new StringBuilder();
+        for (Long id : change.ids()) {
+            String next = ids.isEmpty() ? id.toString() : "," + id;
+            if (fixedBytes + ids.length() + next.length() > MAX_PAYLOAD_BYTES) {
+                payloads.add(head + ids + tail);
+                ids.setLength(0);
+                next = id.toString();
+            }
+            ids.append(next);
+        }
+        payloads.add(head + ids + tail);
+        return payloads;
+    }
+
+    /**
+     * Decodes a payload, or returns null for the changes of this node.
+     */
+    private CacheChange decode(String payload) {
+        String[] parts = payload.substring(1).split("\\|", 3);
+        if (parts[0].equals(nodeId)) {
+            return null;
+        }
+        CacheChange.Kind kind = Arrays.stream(CacheChange.Kind.values())
+                .filter(candidate -> candidate.name().charAt(0) == payload.charAt(0))
+                .findFirst()
+                .orElseThrow();
+        List<Long> ids = parts[1].isEmpty() ? List.of()
+                : Arrays.stream(parts[1].split(",")).map(Long::valueOf).toList();
+        return new CacheChange(kind, parts[2], ids);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException ex) {
+            // Already broken: nothing left to release
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package web.rempro_api.utils.cache;
+
+/**
+ * Local cache receiving the changes published by the other nodes through the
+ * {@link CacheInvalidationBus}. Called on the bus thread: evictions only, no
+ * blocking work.
+ */
+public interface CacheInvalidationListener {
+
+    /**
+     * Evicts what the cache holds about a change made by another node.
+     *
+     * @param change - The change.
+     */
+    void onRemoteChange(CacheChange change);
+
+    /**
+     * Evicts everything: changes of other nodes may have been missed.
+     */
+    void onGap();
+}
@@ -1,5 +1,8 @@
 package web.rempro_api.utils.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,8 +14,12 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import web.rempro_api.users.UsersRepository;
+import web.rempro_api.utils.datasource.ReplicaRoutingDataSource;
+import web.rempro_api.utils.metrics.MeteredPasswordEncoder;
+import web.rempro_api.utils.security.BoundedPasswordEncoder;
 
 @Configuration
 @RequiredArgsConstructor
@@ -25,22 +32,36 @@ public class ApplicationConfig {
     }
 
     @Bean
-    AuthenticationProvider authenticationProvider() {
+    AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(userDetailService());
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
 
         return authenticationProvider;
     }
 
+    /**
+     * BCrypt with a configurable cost, run on a bounded pool so that hashing
+     * bursts cannot take every request thread and core. Existing hashes keep
+     * the cost they were created with until the password changes.
+     */
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+            @Value("${rempro.password-hashing.strength:10}") int strength,
+            @Value("${rempro.password-hashing.threads:0}") int threads,
+            @Value("${rempro.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${rempro.password-hashing.retry-after:1s}") Duration retryAfter) {
+        // 0 : la moitié des coeurs, le reste restant aux autres endpoints
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        PasswordEncoder bcrypt = new MeteredPasswordEncoder(new BCryptPasswordEncoder(strength), meterRegistry);
+        return new BoundedPasswordEncoder(bcrypt, poolSize, queueCapacity, retryAfter, meterRegistry);
     }
 
     @Bean
     UserDetailsService userDetailService() {
-        return username -> userRepository.findByUsername(username)
+        // Cached, and checked against the password: not from a replica behind a password change
+        return username -> ReplicaRoutingDataSource.readFresh(CacheConfig.userReadKey(username),
+                () -> userRepository.findByUsername(username))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 }
@@ -0,0 +1,86 @@
+package web.rempro_api.utils.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.cache.SpringCacheBasedUserCache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import web.rempro_api.utils.cache.CacheChange;
+import web.rempro_api.utils.cache.CacheInvalidationListener;
+import web.rempro_api.utils.datasource.ReplicaRoutingDataSource;
+
+/**
+ * Enables the annotation-driven caches. The caches themselves are Caffeine
+ * caches configured through the spring.cache properties: each one is bounded
+ * in size, expires its entries after write and records hit/miss/eviction stats.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USER_DETAILS_CACHE = "userDetailsCache";
+
+    /**
+     * Returns the key of the fresh reads of a user
+     * ({@link ReplicaRoutingDataSource#readFresh}), marked when the user changes.
+     *
+     * @param username - The username of the user.
+     * @return The key.
+     */
+    public static String userReadKey(String username) {
+        return "user:" + username;
+    }
+
+    /**
+     * Registers the user details cache with its own short TTL, as it only backs
+     * the optional user check of the JWT filter.
+     */
+    @Bean
+    CacheManagerCustomizer<CaffeineCacheManager> userDetailsCacheCustomizer(
+            @Value("${jwt.user-check.ttl:30s}") Duration ttl) {
+        return cacheManager -> cacheManager.registerCustomCache(USER_DETAILS_CACHE, Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+    }
+
+    @Bean
+    UserCache userCache(CacheManager cacheManager) {
+        return new SpringCacheBasedUserCache(cacheManager.getCache(USER_DETAILS_CACHE));
+    }
+
+    /**
+     * Evicts the users changed or deleted on other nodes from the user details
+     * cache, and keeps their next lookups off a replica that lacks the change.
+     */
+    @Bean
+    CacheInvalidationListener userCacheInvalidationListener(CacheManager cacheManager, UserCache userCache,
+            ObjectProvider<ReplicaRoutingDataSource> replicaRouting) {
+        return new CacheInvalidationListener() {
+            @Override
+            public void onRemoteChange(CacheChange change) {
+                if (change.kind() == CacheChange.Kind.USER) {
+                    replicaRouting.ifAvailable(routing -> routing.markWritten(userReadKey(change.subject())));
+                    userCache.removeUserFromCache(change.subject());
+                }
+            }
+
+            @Override
+            public void onGap() {
+                replicaRouting.ifAvailable(ReplicaRoutingDataSource::markAllWritten);
+                cacheManager.getCache(USER_DETAILS_CACHE).clear();
+            }
+        };
+    }
+}
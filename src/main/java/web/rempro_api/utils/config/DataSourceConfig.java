@@ -0,0 +1,73 @@
+package web.rempro_api.utils.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import web.rempro_api.utils.datasource.ReplicaRoutingDataSource;
+
+/**
+ * Replaces the auto-configured DataSource by a {@link ReplicaRoutingDataSource}
+ * once a replica URL is set ({@code rempro.datasource.replica.url}). Without
+ * it, every transaction uses the spring.datasource pool as before.
+ */
+@Configuration
+@ConditionalOnProperty("rempro.datasource.replica.url")
+public class DataSourceConfig {
+
+    /**
+     * Builds the primary pool from the spring.datasource properties, the replica
+     * pool from the rempro.datasource.replica ones, and the DataSource routing
+     * between them. The pools are not beans: the health check and Flyway only
+     * see the routing DataSource, and so the primary.
+     */
+    @Bean
+    ReplicaRoutingDataSource dataSource(DataSourceProperties properties,
+            Environment environment,
+            MeterRegistry registry,
+            @Value("${rempro.datasource.replica.url}") String replicaUrl,
+            @Value("${rempro.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${rempro.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${rempro.datasource.replica.pool-size:10}") int poolSize,
+            @Value("${rempro.datasource.replica.connection-timeout:1s}") Duration connectionTimeout,
+            @Value("${rempro.datasource.replica.read-your-writes:5s}") Duration readYourWrites,
+            @Value("${rempro.datasource.replica.retry-after:30s}") Duration retryAfter,
+            @Value("${rempro.datasource.replica.max-lag:5s}") Duration maxLag,
+            @Value("${rempro.datasource.replica.lag-check-interval:PT1S}") Duration lagCheckInterval) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+        primary.setMetricRegistry(registry);
+
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(username)
+                .password(password)
+                .build();
+        replica.setPoolName("replica");
+        replica.setMaximumPoolSize(poolSize);
+        replica.setConnectionTimeout(connectionTimeout.toMillis());
+        // Starts even if the replica is down: reads then fall back to the primary
+        replica.setInitializationFailTimeout(-1);
+        replica.setReadOnly(true);
+        replica.setMetricRegistry(registry);
+
+        return new ReplicaRoutingDataSource(primary, replica, readYourWrites, retryAfter, maxLag, lagCheckInterval,
+                registry);
+    }
+}
@@ -0,0 +1,13 @@
+package web.rempro_api.utils.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the {@code @Scheduled} maintenance jobs, run on the threads of the
+ * auto-configured task scheduler ({@code spring.task.scheduling.pool.size}).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
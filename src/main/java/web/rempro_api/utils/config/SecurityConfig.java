@@ -1,16 +1,27 @@
 package web.rempro_api.utils.config;
 
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationManagers;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import web.rempro_api.utils.jwt.JwtAuthenticationFilter;
+import web.rempro_api.utils.security.RateLimitFilter;
 
 @Configuration
 @EnableWebSecurity
@@ -18,12 +29,25 @@ import web.rempro_api.utils.jwt.JwtAuthenticationFilter;
 public class SecurityConfig {
 
 	private final JwtAuthenticationFilter jwtAuthenticationFilter;
+	private final RateLimitFilter rateLimitFilter;
 	private final AuthenticationProvider authProvider;
 
 	@Bean
-	SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+	SecurityFilterChain securityFilterChain(HttpSecurity http,
+			@Value("${rempro.metrics.scrape-networks:127.0.0.1/32,::1/128}") List<String> scrapeNetworks)
+			throws Exception {
 		http.csrf(csrf -> csrf.disable())
 				.authorizeHttpRequests(authRequest -> authRequest
+						// The async dispatch completing a streamed response was authorized on the initial request
+						.dispatcherTypeMatchers(DispatcherType.ASYNC)
+						.permitAll()
+						// Liveness; the other Actuator endpoints are not exposed
+						.requestMatchers("/actuator/health")
+						.permitAll()
+						// Scraping reveals usage and internals: the Prometheus network or an admin only
+						.requestMatchers("/actuator/prometheus")
+						.access(AuthorizationManagers.anyOf(fromNetworks(scrapeNetworks),
+								AuthorityAuthorizationManager.hasAuthority("ADMIN")))
 						.requestMatchers("/auth/**", "/swagger-ui/**", "/v3/api-docs/**", "/swagger-resources/**",
 								"/webjars/**")
 						.permitAll()
@@ -33,8 +57,16 @@ public class SecurityConfig {
 				.sessionManagement(sessionManager -> sessionManager
 						.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 				.authenticationProvider(authProvider)
-				.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+				.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+				// Abusive clients are refused before any authentication work
+				.addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
 
 		return http.build();
 	}
+
+	private static AuthorizationManager<RequestAuthorizationContext> fromNetworks(List<String> networks) {
+		List<IpAddressMatcher> matchers = networks.stream().map(String::trim).map(IpAddressMatcher::new).toList();
+		return (authentication, context) -> new AuthorizationDecision(
+				matchers.stream().anyMatch(matcher -> matcher.matches(context.getRequest())));
+	}
 }
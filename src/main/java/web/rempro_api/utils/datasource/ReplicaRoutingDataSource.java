@@ -0,0 +1,354 @@
+package web.rempro_api.utils.datasource;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * DataSource sending read-only transactions to a replica and everything else
+ * to the primary.
+ * <p>
+ * The connection is only taken from a pool when the first statement runs, once
+ * the transaction has marked it read-only or not. Reads still go to the
+ * primary:
+ * <ul>
+ * <li>for a user who wrote during the last {@code readYourWrites}, longer than
+ * the replica lag, so that they see their own writes;</li>
+ * <li>for {@code retryAfter} after the replica failed to give a connection;</li>
+ * <li>within {@link #readFresh(String, Supplier)}, while the replica has not
+ * replayed the last write marked for the key;</li>
+ * <li>within {@link #readFromPrimary(Supplier)}.</li>
+ * </ul>
+ * Reads whose result outlives the request (cache fills, sync watermarks) must
+ * not come from a replica behind the write that evicted them. Their caches
+ * mark each eviction with {@link #markWritten(String)}, on the node of the
+ * write and on the others when the cache bus delivers it, and their loads run
+ * within {@link #readFresh(String, Supplier)}. Every
+ * {@code lagCheckInterval}, the WAL position of the primary is noted and
+ * compared to the one the replica replayed: once the replica replayed a
+ * position noted after a mark, it has the write. A replica behind by more than
+ * {@code maxLag}, or not replaying the primary, serves none of these reads.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+    private static final ThreadLocal<String> FRESH_READS = new ThreadLocal<>();
+
+    // WAL positions in bytes; the insert one is never behind a commit, null on a replica replaying no primary
+    private static final String PRIMARY_LSN_SQL = "SELECT pg_current_wal_insert_lsn() - '0/0'";
+    private static final String REPLAYED_LSN_SQL = "SELECT pg_last_wal_replay_lsn() - '0/0'";
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final Duration retryAfter;
+    private final long maxLagNanos;
+    private final Cache<String, Boolean> recentWriters;
+    // System.nanoTime() of the last write of each key, kept maxLag
+    private final Cache<String, Long> writtenAt;
+    // Primary positions noted by the lag checks, one at a time, and not replayed yet, oldest first
+    private final Deque<long[]> primaryPositions = new ArrayDeque<>();
+    private final int maxPrimaryPositions;
+    // Writes before the start were not marked
+    private volatile long allWrittenAt = System.nanoTime();
+    // System.nanoTime() of the last primary position the replica replayed
+    private volatile long replayedUpTo;
+    private volatile boolean replayed;
+    private volatile long replicaDownUntil;
+
+    private final Counter replicaReads;
+    private final Counter recentWriteReads;
+    private final Counter replicaBehindReads;
+    private final Counter replicaDownReads;
+    private final Counter primaryHintReads;
+
+    /**
+     * @param primary          - The pool of the primary database.
+     * @param replica          - The pool of the replica.
+     * @param readYourWrites   - How long the reads of a user stay on the primary
+     *                         after they wrote.
+     * @param retryAfter       - How long reads stay on the primary after the
+     *                         replica failed.
+     * @param maxLag           - The replica lag past which the fresh reads all
+     *                         go to the primary.
+     * @param lagCheckInterval - The interval of the lag checks, as scheduled.
+     * @param registry         - The registry of the routing counters.
+     */
+    public ReplicaRoutingDataSource(HikariDataSource primary, HikariDataSource replica, Duration readYourWrites,
+            Duration retryAfter, Duration maxLag, Duration lagCheckInterval, MeterRegistry registry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.retryAfter = retryAfter;
+        this.maxLagNanos = maxLag.toNanos();
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(readYourWrites)
+                .build();
+        this.writtenAt = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(maxLag)
+                .build();
+        this.maxPrimaryPositions = (int) Math.max(1, maxLag.toMillis() / Math.max(1, lagCheckInterval.toMillis()));
+        this.replicaReads = readsCounter(registry, "replica", "none");
+        this.recentWriteReads = readsCounter(registry, "primary", "recent-write");
+        this.replicaBehindReads = readsCounter(registry, "primary", "replica-behind");
+        this.replicaDownReads = readsCounter(registry, "primary", "replica-down");
+        this.primaryHintReads = readsCounter(registry, "primary", "read-from-primary");
+        setTargetDataSource(new WriteDataSource());
+        setReadOnlyDataSource(new ReadDataSource());
+    }
+
+    @Override
+    public void close() {
+        replica.close();
+        primary.close();
+    }
+
+    /**
+     * Runs reads on the primary, whether or not a replica is configured. The
+     * connection of a transaction is chosen by its first statement: inside a
+     * read-only transaction, call it before any query.
+     *
+     * @param reads - The reads to run.
+     * @return The result of the reads.
+     */
+    public static <T> T readFromPrimary(Supplier<T> reads) {
+        return within(PRIMARY_READS, Boolean.TRUE, reads);
+    }
+
+    /**
+     * Runs reads that must include every write marked for a key: on the
+     * replica once it replayed the last of them, on the primary before. Like
+     * {@link #readFromPrimary(Supplier)}, call it before any query of the
+     * transaction.
+     *
+     * @param key   - The key marked by the writes, see {@link #markWritten(String)}.
+     * @param reads - The reads to run.
+     * @return The result of the reads.
+     */
+    public static <T> T readFresh(String key, Supplier<T> reads) {
+        return within(FRESH_READS, key, reads);
+    }
+
+    private static <T, V> T within(ThreadLocal<V> hint, V value, Supplier<T> reads) {
+        if (hint.get() != null) {
+            return reads.get();
+        }
+        hint.set(value);
+        try {
+            return reads.get();
+        } finally {
+            hint.remove();
+        }
+    }
+
+    /**
+     * Marks a key as written now: its fresh reads go to the primary until the
+     * replica replays this point. Call it once the write committed.
+     *
+     * @param key - The key read by {@link #readFresh(String, Supplier)}.
+     */
+    public void markWritten(String key) {
+        writtenAt.put(key, System.nanoTime());
+    }
+
+    /**
+     * Marks a key as written once the current transaction commits, or now
+     * outside of a transaction.
+     *
+     * @param key - The key read by {@link #readFresh(String, Supplier)}.
+     */
+    public void markWrittenAfterCommit(String key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markWritten(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markWritten(key);
+            }
+        });
+    }
+
+    /**
+     * Marks every key as written now, when writes may have gone unmarked.
+     */
+    public void markAllWritten() {
+        allWrittenAt = System.nanoTime();
+    }
+
+    /**
+     * Notes the current WAL position of the primary, and moves the point the
+     * replica has replayed up to the last noted position it reached. A failed
+     * check leaves that point where it was: the fresh reads fall back to the
+     * primary as it ages past {@code maxLag}.
+     */
+    @Scheduled(fixedDelayString = "${rempro.datasource.replica.lag-check-interval:PT1S}")
+    public void checkReplicaLag() {
+        long notedAt = System.nanoTime();
+        Long primaryPosition = walPosition(primary, PRIMARY_LSN_SQL);
+        if (primaryPosition != null) {
+            if (primaryPositions.size() == maxPrimaryPositions) {
+                // Not replayed for maxLag: the replica is too far behind anyway
+                primaryPositions.removeFirst();
+            }
+            primaryPositions.addLast(new long[] { notedAt, primaryPosition });
+        }
+        Long replayedPosition = walPosition(replica, REPLAYED_LSN_SQL);
+        if (replayedPosition == null) {
+            return;
+        }
+        while (!primaryPositions.isEmpty() && primaryPositions.peekFirst()[1] <= replayedPosition) {
+            replayedUpTo = primaryPositions.removeFirst()[0];
+            replayed = true;
+        }
+    }
+
+    private static Long walPosition(HikariDataSource dataSource, String sql) {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            long position = result.getLong(1);
+            return result.wasNull() ? null : position;
+        } catch (SQLException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Tells whether the replica replayed the last write marked for a key, and
+     * is not more than {@code maxLag} behind.
+     */
+    private boolean replicaHasWritesOf(String key) {
+        if (!replayed || System.nanoTime() - replayedUpTo > maxLagNanos) {
+            return false;
+        }
+        Long written = writtenAt.getIfPresent(key);
+        // Noted after the write: the position replayed includes it
+        return replayedUpTo - allWrittenAt > 0 && (written == null || replayedUpTo - written > 0);
+    }
+
+    private static Counter readsCounter(MeterRegistry registry, String target, String reason) {
+        return Counter.builder("rempro.datasource.reads")
+                .description("Read-only connections by database, and why reads went to the primary")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /**
+     * Name of the authenticated user of the current request, or null for
+     * anonymous requests and outside of requests.
+     */
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * Primary connections for writes: opens the read-your-writes window of the
+     * user, again when the transaction ends so that it covers the commit.
+     */
+    private final class WriteDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            recordWrite();
+            return primary.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            recordWrite();
+            return primary.getConnection(username, password);
+        }
+
+        private void recordWrite() {
+            String username = currentUsername();
+            if (username == null) {
+                return;
+            }
+            recentWriters.put(username, Boolean.TRUE);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        recentWriters.put(username, Boolean.TRUE);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Connections for read-only transactions: the replica unless the reads
+     * asked for the primary, need writes the replica has not replayed yet, the
+     * user wrote recently or the replica is down.
+     */
+    private final class ReadDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (PRIMARY_READS.get() != null) {
+                primaryHintReads.increment();
+                return primary.getConnection();
+            }
+            String freshKey = FRESH_READS.get();
+            if (freshKey != null && !replicaHasWritesOf(freshKey)) {
+                replicaBehindReads.increment();
+                return primary.getConnection();
+            }
+            String username = currentUsername();
+            if (username != null && recentWriters.getIfPresent(username) != null) {
+                recentWriteReads.increment();
+                return primary.getConnection();
+            }
+            if (System.currentTimeMillis() < replicaDownUntil) {
+                replicaDownReads.increment();
+                return primary.getConnection();
+            }
+            try {
+                Connection connection = replica.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException ex) {
+                // Other requests skip the replica rather than each waiting for its connection timeout
+                replicaDownUntil = System.currentTimeMillis() + retryAfter.toMillis();
+                replicaDownReads.increment();
+                return primary.getConnection();
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package web.rempro_api.utils.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FollowedBatchResult {
+    int index;
+    Long id;
+    String status;
+    String message;
+
+    public static FollowedBatchResult succeeded(int index, Long id, String status) {
+        return FollowedBatchResult.builder().index(index).id(id).status(status).build();
+    }
+
+    public static FollowedBatchResult rejected(int index, Long id, String message) {
+        return FollowedBatchResult.builder().index(index).id(id).status("REJECTED").message(message).build();
+    }
+}
@@ -0,0 +1,25 @@
+package web.rempro_api.utils.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FollowedChanges {
+    // Created or updated since the watermark, oldest first
+    List<FollowedView> updated;
+    // Deleted since the watermark
+    List<Long> deleted;
+    // To send back as `since` on the next call
+    String watermark;
+    // More changes are waiting: call again right away with the new watermark
+    boolean hasMore;
+    // The watermark is too old or missing: reload the whole list, then sync from the new watermark
+    boolean fullResync;
+}
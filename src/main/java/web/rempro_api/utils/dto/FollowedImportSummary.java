@@ -0,0 +1,27 @@
+package web.rempro_api.utils.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FollowedImportSummary {
+    long accepted;
+    long rejected;
+    // First rejected lines only, so the summary stays small for any upload size
+    List<Rejection> rejections;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Rejection {
+        long line;
+        String reason;
+    }
+}
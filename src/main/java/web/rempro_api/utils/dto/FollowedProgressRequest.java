@@ -0,0 +1,18 @@
+package web.rempro_api.utils.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FollowedProgressRequest {
+    // Either the new value or an increment (negative to go back) for each number, never both
+    Integer levelNumber;
+    Integer levelIncrement;
+    Integer episodeNumber;
+    Integer episodeIncrement;
+}
@@ -10,8 +10,12 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 public class FollowedRequest {
+    // Only read by batch updates, to target the Followed item
+    Long id;
     String name;
     String levelType;
     Number levelNumber;
     Number episodeNumber;
+    // Only read by updates, optional: the version the client last read, to refuse overwriting a newer one
+    Long version;
 }
@@ -0,0 +1,18 @@
+package web.rempro_api.utils.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import web.rempro_api.utils.enums.LevelType;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FollowedSearchResult {
+    Long id;
+    String name;
+    LevelType levelType;
+    double score;
+}
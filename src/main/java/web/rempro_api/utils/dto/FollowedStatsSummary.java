@@ -0,0 +1,23 @@
+package web.rempro_api.utils.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import web.rempro_api.utils.enums.LevelType;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FollowedStatsSummary {
+    // Every level type, zero included
+    Map<LevelType, Long> countByLevelType;
+    long total;
+    long totalEpisodes;
+    // Most recently updated first
+    List<FollowedView> recentlyUpdated;
+}
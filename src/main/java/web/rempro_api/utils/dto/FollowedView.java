@@ -0,0 +1,26 @@
+package web.rempro_api.utils.dto;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import web.rempro_api.utils.enums.LevelType;
+
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class FollowedView {
+    Long id;
+    String name;
+    LevelType levelType;
+    Integer levelNumber;
+    Integer episodeNumber;
+    Date createdAt;
+    Date updatedAt;
+    Long version;
+    Long ownerId;
+    String ownerUsername;
+}
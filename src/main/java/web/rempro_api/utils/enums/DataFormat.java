@@ -0,0 +1,5 @@
+package web.rempro_api.utils.enums;
+
+public enum DataFormat {
+    NDJSON, CSV
+}
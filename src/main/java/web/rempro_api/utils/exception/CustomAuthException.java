@@ -6,8 +6,7 @@ public class CustomAuthException extends RuntimeException {
 
     // Constructeur pour personnaliser le message et le code d'état HTTP
     public CustomAuthException(String message) {
-        super(message);
-        this.statusCode = 400;  // Valeur par défaut, vous pouvez la modifier si nécessaire
+        this(message, 400);  // Valeur par défaut, vous pouvez la modifier si nécessaire
     }
 
     // Constructeur permettant de définir un message et un code d'état HTTP
@@ -0,0 +1,25 @@
+package web.rempro_api.utils.exception;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Counts the CustomAuthException turned into an error response, by status
+ * code. Exceptions that are created but not thrown, or caught to reject one
+ * item of a batch, are not counted.
+ */
+public final class ExceptionMetrics {
+
+    private ExceptionMetrics() {
+    }
+
+    /**
+     * Counts an exception answered to the client.
+     *
+     * @param ex - The exception being answered.
+     */
+    public static void count(CustomAuthException ex) {
+        // Compté par code d'état dans le registre global, alimenté par Spring Boot
+        Metrics.counter("rempro.exceptions", "exception", "CustomAuthException", "status",
+                String.valueOf(ex.getStatusCode())).increment();
+    }
+}
@@ -1,5 +1,6 @@
 package web.rempro_api.utils.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -12,9 +13,19 @@ public class GlobalExceptionHandler {
     // Gestion globale des exceptions CustomAuthException
     @ExceptionHandler(CustomAuthException.class)
     public ResponseEntity<String> handleCustomAuthException(CustomAuthException ex) {
+        ExceptionMetrics.count(ex);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
     }
 
+    // Saturation d'une ressource bornée : 503 avec le délai avant de réessayer
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<String> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        ExceptionMetrics.count(ex);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, ex.getRetryAfterHeader())
+                .body(ex.getMessage());
+    }
+
     // Gestion d'autres exceptions (optionnel)
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
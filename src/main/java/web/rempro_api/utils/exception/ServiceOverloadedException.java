@@ -0,0 +1,26 @@
+package web.rempro_api.utils.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a bounded resource refuses more work. Maps to 503 Service
+ * Unavailable, with a Retry-After header telling the client when to retry.
+ */
+public class ServiceOverloadedException extends CustomAuthException {
+
+    private final Duration retryAfter;
+
+    public ServiceOverloadedException(String message, Duration retryAfter) {
+        super(message, 503);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    // Valeur de l'en-tête Retry-After, en secondes entières
+    public String getRetryAfterHeader() {
+        return String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+    }
+}
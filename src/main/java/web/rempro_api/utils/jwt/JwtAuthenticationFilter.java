@@ -1,29 +1,54 @@
 package web.rempro_api.utils.jwt;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.CachingUserDetailsService;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Claims already verified earlier in the chain (by the rate limiter) for this request
+    public static final String VERIFIED_CLAIMS_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".claims";
+
     private final JwtService jwtService;
+    private final TokenRevocationStore tokenRevocationStore;
     private final UserDetailsService userDetailsService;
+    private final boolean userCheckEnabled;
+
+    public JwtAuthenticationFilter(JwtService jwtService, TokenRevocationStore tokenRevocationStore,
+            UserDetailsService userDetailsService, UserCache userCache,
+            @Value("${jwt.user-check.enabled:false}") boolean userCheckEnabled) {
+        CachingUserDetailsService cachingUserDetailsService = new CachingUserDetailsService(userDetailsService);
+        cachingUserDetailsService.setUserCache(userCache);
+
+        this.jwtService = jwtService;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.userDetailsService = cachingUserDetailsService;
+        this.userCheckEnabled = userCheckEnabled;
+    }
 
     @SuppressWarnings("null")
     @Override
@@ -31,21 +56,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         final String token = getTokenFromRequest(request);
-        final String username;
+        final Claims claims;
 
         if (token == null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        username = jwtService.getUsernameFromToken(token);
+        // Une seule vérification de signature par requête (et aucune pour un token déjà vérifié)
+        if (request.getAttribute(VERIFIED_CLAIMS_ATTRIBUTE) instanceof Claims verified) {
+            claims = verified;
+        } else {
+            try {
+                claims = jwtService.verifyToken(token);
+            } catch (JwtException | IllegalArgumentException ex) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+        }
+
+        // Token révoqué (logout) : la requête reste anonyme
+        if (tokenRevocationStore.isRevoked(claims.getId())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final String username = claims.getSubject();
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Collection<? extends GrantedAuthority> authorities = resolveAuthorities(claims);
 
-            if (jwtService.isTokenValid(token, userDetails)) {
+            if (authorities != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(username, null,
-                        userDetails.getAuthorities());
+                        authorities);
 
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
@@ -56,6 +99,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Resolves the authorities of a verified token. They are read from the role
+     * claim alone, unless the user check is enabled or the token predates the
+     * role claim, in which case the (briefly cached) user is loaded.
+     *
+     * @return The authorities, or null if the user no longer exists.
+     */
+    private Collection<? extends GrantedAuthority> resolveAuthorities(Claims claims) {
+        final String role = jwtService.getRoleFromClaims(claims);
+
+        if (role != null && !userCheckEnabled) {
+            return List.of(new SimpleGrantedAuthority(role));
+        }
+
+        try {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+            return jwtService.isTokenValid(claims, userDetails) ? userDetails.getAuthorities() : null;
+        } catch (UsernameNotFoundException ex) {
+            return null;
+        }
+    }
+
     private String getTokenFromRequest(HttpServletRequest request) {
         final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
 
@@ -67,4 +132,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     }
 
-}
\ No newline at end of file
+}
@@ -1,41 +1,83 @@
 package web.rempro_api.utils.jwt;
 
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 import javax.crypto.SecretKey;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import web.rempro_api.users.Users;
 
 @Service
 public class JwtService {
+	public static final String ROLE_CLAIM = "role";
+	public static final String USER_ID_CLAIM = "uid";
+
 	String SECRET_KEY = "dvgjbhkj551dzafrevc2663q2ds1d4e522sf5ss52dfd54df5qdffff";
 
+	// Décodés et construits une seule fois, partagés par toutes les requêtes
+	private final SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+	private final JwtParser parser = Jwts.parser().verifyWith(key).build();
+
+	private final VerifiedTokenCache verifiedTokenCache;
+	// Courte : une session se prolonge par /auth/refresh, sans BCrypt
+	private final Duration accessTokenTtl;
+
+	public JwtService(VerifiedTokenCache verifiedTokenCache,
+			@Value("${jwt.access-token.ttl:PT15M}") Duration accessTokenTtl) {
+		this.verifiedTokenCache = verifiedTokenCache;
+		this.accessTokenTtl = accessTokenTtl;
+	}
+
+	public Duration getAccessTokenTtl() {
+		return accessTokenTtl;
+	}
+
 	public String getToken(UserDetails user) {
-		return getToken(new HashMap<>(), user);
+		Map<String, Object> extraClaims = new HashMap<>();
+		// Rôle et id embarqués pour authentifier les requêtes sans relire la table users
+		user.getAuthorities().stream().findFirst()
+				.ifPresent(authority -> extraClaims.put(ROLE_CLAIM, authority.getAuthority()));
+		if (user instanceof Users users && users.getId() != null) {
+			extraClaims.put(USER_ID_CLAIM, users.getId());
+		}
+		return getToken(extraClaims, user);
 	}
 
 	private String getToken(Map<String, Object> extraClaims, UserDetails user) {
 		return Jwts.builder()
 				.claims(extraClaims)
+				.id(UUID.randomUUID().toString()) // Identifiant du token, pour pouvoir le révoquer
 				.subject(user.getUsername()) // Nom de l'utilisateur comme sujet du token
 				.issuedAt(new Date(System.currentTimeMillis())) // Date de création du token
-				.expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 24)) // Expiration après 24h
-				.signWith(getKey()) // Signature du token
+				.expiration(new Date(System.currentTimeMillis() + accessTokenTtl.toMillis())) // Expiration après jwt.access-token.ttl
+				.signWith(key) // Signature du token
 				.compact();
 	}
 
-	private SecretKey getKey() {
-		byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-		return Keys.hmacShaKeyFor(keyBytes);
+	/**
+	 * Parses and verifies a token once, reusing the claims of tokens already
+	 * verified until they expire.
+	 *
+	 * @param token - The compact JWT.
+	 * @return The verified claims of the token.
+	 * @throws io.jsonwebtoken.JwtException if the token is malformed, badly
+	 *                                      signed or expired.
+	 */
+	public Claims verifyToken(String token) {
+		return verifiedTokenCache.get(token, this::getAllClaims);
 	}
 
 	public String getUsernameFromToken(String token) {
@@ -43,24 +85,27 @@ public class JwtService {
 	}
 
 	public boolean isTokenValid(String token, UserDetails userDetails) {
-		final String username = getUsernameFromToken(token);
-		return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+		return isTokenValid(verifyToken(token), userDetails);
 	}
 
-	private Claims getAllClaims(String token) {
-		return Jwts.parser().verifyWith(getKey()).build().parseSignedClaims(token).getPayload();
+	public String getRoleFromClaims(Claims claims) {
+		return claims.get(ROLE_CLAIM, String.class);
 	}
 
-	public <T> T getClaim(String token, Function<Claims, T> claimsResolver) {
-		final Claims claims = getAllClaims(token);
-		return claimsResolver.apply(claims);
+	public Long getUserIdFromClaims(Claims claims) {
+		return claims.get(USER_ID_CLAIM, Long.class);
 	}
 
-	private Date getExpiration(String token) {
-		return getClaim(token, Claims::getExpiration);
+	public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+		return claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date());
 	}
 
-	private boolean isTokenExpired(String token) {
-		return getExpiration(token).before(new Date());
+	private Claims getAllClaims(String token) {
+		return parser.parseSignedClaims(token).getPayload();
+	}
+
+	public <T> T getClaim(String token, Function<Claims, T> claimsResolver) {
+		final Claims claims = verifyToken(token);
+		return claimsResolver.apply(claims);
 	}
 }
@@ -0,0 +1,224 @@
+package web.rempro_api.utils.jwt;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import web.rempro_api.auth.RevokedToken;
+import web.rempro_api.auth.RevokedTokenRepository;
+import web.rempro_api.utils.cache.CacheChange;
+import web.rempro_api.utils.cache.CacheInvalidationBus;
+import web.rempro_api.utils.cache.CacheInvalidationListener;
+import web.rempro_api.utils.datasource.ReplicaRoutingDataSource;
+
+/**
+ * Tokens revoked before their expiration, by {@code jti}.
+ * <p>
+ * Every authenticated request asks whether its token is revoked, and almost
+ * never is: a Bloom filter answers that without a lock or an allocation. Only
+ * its rare positives look up the set of revoked tokens, where each entry
+ * expires with its token. Revocations are stored in the revoked_token table,
+ * reloaded at startup, and sent to the other nodes through the
+ * {@link CacheInvalidationBus}.
+ * <p>
+ * The filter cannot forget a key: the purge rebuilds it from the tokens not
+ * yet expired.
+ */
+@Component
+public class TokenRevocationStore implements CacheInvalidationListener, MeterBinder {
+
+    private final RevokedTokenRepository repository;
+    private final CacheInvalidationBus bus;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+
+    // jti -> expiration in milliseconds, never evicted before it
+    private final Cache<String, Long> revoked = Caffeine.newBuilder()
+            .expireAfter(new ExpireAtTokenExpiration())
+            .build();
+    private volatile BloomFilter filter;
+    // Set when revocations made on other nodes may have been missed
+    private volatile boolean reloadRequested;
+
+    // Registered once the meter registry is bound, null until then
+    private volatile Counter rejected;
+    private volatile Counter falsePositives;
+
+    public TokenRevocationStore(RevokedTokenRepository repository, CacheInvalidationBus bus,
+            @Value("${jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+            @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.repository = repository;
+        this.bus = bus;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("rempro.jwt.revoked", revoked, Cache::estimatedSize)
+                .description("Revoked tokens not yet expired")
+                .register(registry);
+        rejected = Counter.builder("rempro.jwt.revoked.rejected")
+                .description("Requests refused because their token was revoked")
+                .register(registry);
+        falsePositives = Counter.builder("rempro.jwt.revoked.false-positives")
+                .description("Tokens the Bloom filter reported revoked that were not")
+                .register(registry);
+    }
+
+    /**
+     * Tells whether a token was revoked.
+     *
+     * @param jti - The {@code jti} claim of the token, null for the tokens
+     *            issued before it existed.
+     * @return Whether the token was revoked.
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        if (revoked.getIfPresent(jti) != null) {
+            increment(rejected);
+            return true;
+        }
+        increment(falsePositives);
+        return false;
+    }
+
+    /**
+     * Revokes a token until its expiration, on every node once the current
+     * transaction commits.
+     *
+     * @param jti        - The {@code jti} claim of the token.
+     * @param expiration - The expiration of the token.
+     */
+    @Transactional
+    public void revoke(String jti, Date expiration) {
+        if (jti == null || !expiration.after(new Date())) {
+            return;
+        }
+        repository.insert(jti, expiration);
+        afterCommit(() -> add(jti, expiration.getTime()));
+        bus.publish(new CacheChange(CacheChange.Kind.TOKEN, jti, List.of(expiration.getTime())));
+    }
+
+    @Override
+    public void onRemoteChange(CacheChange change) {
+        if (change.kind() == CacheChange.Kind.TOKEN) {
+            add(change.subject(), change.ids().get(0));
+        }
+    }
+
+    @Override
+    public void onGap() {
+        // Reloading is a query: not on the bus thread
+        reloadRequested = true;
+    }
+
+    /**
+     * Loads the revocations not yet expired.
+     */
+    @PostConstruct
+    public void load() {
+        // After a gap, the missed revocations may not have reached the replica yet
+        List<RevokedToken> tokens = ReplicaRoutingDataSource
+                .readFromPrimary(() -> repository.findByExpiresAtAfter(new Date()));
+        synchronized (this) {
+            tokens.forEach(token -> revoked.put(token.getJti(), token.getExpiresAt().getTime()));
+            rebuild();
+        }
+    }
+
+    /**
+     * Reloads the revocations after revocations of other nodes may have been
+     * missed.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.reload-check-interval:PT5S}")
+    public void reloadIfRequested() {
+        if (reloadRequested) {
+            reloadRequested = false;
+            load();
+        }
+    }
+
+    /**
+     * Deletes the expired revocations and rebuilds the Bloom filter without
+     * them.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT1H}", initialDelayString = "PT1M")
+    public void purge() {
+        repository.deleteExpiredBefore(new Date());
+        synchronized (this) {
+            rebuild();
+        }
+    }
+
+    private synchronized void add(String jti, long expiration) {
+        revoked.put(jti, expiration);
+        filter.add(jti);
+    }
+
+    // Called with the lock held, so that no add lands in the filter being replaced
+    private void rebuild() {
+        revoked.cleanUp();
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, revoked.estimatedSize()),
+                falsePositiveRate);
+        revoked.asMap().keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class ExpireAtTokenExpiration implements Expiry<String, Long> {
+
+        @Override
+        public long expireAfterCreate(String jti, Long expiration, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(expiration - System.currentTimeMillis(), 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String jti, Long expiration, long currentTime, long currentDuration) {
+            return expireAfterCreate(jti, expiration, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String jti, Long expiration, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
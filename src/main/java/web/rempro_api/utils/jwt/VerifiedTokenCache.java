@@ -0,0 +1,131 @@
+package web.rempro_api.utils.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of the claims of already verified tokens.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the token, so raw bearer tokens
+ * are never kept in memory, and each entry expires exactly at the token's
+ * {@code exp}: a cache hit is always a signed and unexpired token.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private final Cache<String, Claims> cache;
+    // Registered once the meter registry is bound, null until then
+    private volatile Timer validTokenTimer;
+    private volatile Timer invalidTokenTimer;
+
+    public VerifiedTokenCache(@Value("${jwt.verified-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ExpireAtTokenExpiration())
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Same tag keys as the Spring caches, which share the cache.* meter names
+        CaffeineCacheMetrics.monitor(registry, cache, "verifiedTokenCache",
+                "cache.manager", "none", "name", "verifiedTokenCache");
+        validTokenTimer = verifyTimer(registry, "valid");
+        invalidTokenTimer = verifyTimer(registry, "invalid");
+    }
+
+    private static Timer verifyTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("rempro.jwt.verify")
+                .description("Time to verify a bearer token, cache hits included")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Returns the cached claims of a token, verifying it on a miss.
+     *
+     * @param token    - The compact JWT.
+     * @param verifier - Parses and verifies the token, throwing if it is invalid.
+     * @return The verified claims of the token.
+     */
+    public Claims get(String token, Function<String, Claims> verifier) {
+        long start = System.nanoTime();
+        try {
+            Claims claims = lookup(token, verifier);
+            record(validTokenTimer, start);
+            return claims;
+        } catch (RuntimeException ex) {
+            record(invalidTokenTimer, start);
+            throw ex;
+        }
+    }
+
+    private static void record(Timer timer, long start) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Claims lookup(String token, Function<String, Claims> verifier) {
+        String digest = digest(token);
+        Claims claims = cache.getIfPresent(digest);
+        if (claims != null) {
+            return claims;
+        }
+
+        // Verify outside of the cache so an invalid token throws to the caller
+        claims = verifier.apply(token);
+        if (claims.getExpiration() != null) {
+            cache.put(digest, claims);
+        }
+        return claims;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private static final class ExpireAtTokenExpiration implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long millisLeft = claims.getExpiration().getTime() - new Date().getTime();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(millisLeft, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package web.rempro_api.utils.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Application metrics that Spring Boot does not record by itself. Request
+ * latencies, Hikari pool and Spring cache metrics come from the Actuator
+ * auto-configuration, tuned in application.yml, and everything is scraped
+ * from /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final StatementCounter statementCounter = new StatementCounter();
+    private final MeterRegistry meterRegistry;
+
+    public MetricsConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new StatementCountInterceptor(statementCounter, meterRegistry));
+    }
+}
@@ -0,0 +1,244 @@
+package web.rempro_api.utils.security;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import web.rempro_api.utils.jwt.JwtAuthenticationFilter;
+import web.rempro_api.utils.jwt.JwtService;
+
+/**
+ * Rate limits requests before they are authenticated, with separate budgets:
+ * <ul>
+ * <li>/auth/** per IP and username, against guessing the password of one
+ * account, and per IP, against guessing across many accounts;</li>
+ * <li>other routes, /auth/refresh included as it checks no password, per token
+ * subject, or per IP without a valid token.</li>
+ * </ul>
+ * Refused requests get 429 with Retry-After, and /auth/** bodies larger than
+ * the credentials need get 413. The claims verified to find the
+ * subject are handed to the JwtAuthenticationFilter, which does not verify the
+ * token again.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Les identifiants de connexion tiennent largement dans cette taille
+    private static final int MAX_AUTH_BODY_BYTES = 4096;
+    private static final String REFRESH_URI = "/auth/refresh";
+
+    private final JwtService jwtService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final RateLimiter authLimiter;
+    private final RateLimiter authIpLimiter;
+    private final RateLimiter apiLimiter;
+    private final Counter authRejected;
+    private final Counter apiRejected;
+
+    public RateLimitFilter(JwtService jwtService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${rempro.rate-limit.enabled:true}") boolean enabled,
+            @Value("${rempro.rate-limit.max-keys:100000}") long maxKeys,
+            @Value("${rempro.rate-limit.auth.capacity:10}") int authCapacity,
+            @Value("${rempro.rate-limit.auth.period:1m}") Duration authPeriod,
+            @Value("${rempro.rate-limit.auth-ip.capacity:30}") int authIpCapacity,
+            @Value("${rempro.rate-limit.auth-ip.period:1m}") Duration authIpPeriod,
+            @Value("${rempro.rate-limit.api.capacity:100}") int apiCapacity,
+            @Value("${rempro.rate-limit.api.period:10s}") Duration apiPeriod) {
+        this.jwtService = jwtService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.authLimiter = new RateLimiter(authCapacity, authPeriod, maxKeys);
+        this.authIpLimiter = new RateLimiter(authIpCapacity, authIpPeriod, maxKeys);
+        this.apiLimiter = new RateLimiter(apiCapacity, apiPeriod, maxKeys);
+        this.authRejected = rejectedCounter(meterRegistry, "auth");
+        this.apiRejected = rejectedCounter(meterRegistry, "api");
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String budget) {
+        return Counter.builder("rempro.rate.limit.rejected")
+                .description("Requests refused by the rate limiter")
+                .tag("budget", budget)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || request.getRequestURI().startsWith("/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        if (request.getRequestURI().startsWith("/auth/") && !request.getRequestURI().equals(REFRESH_URI)) {
+            // The client address, behind a trusted proxy, comes from server.forward-headers-strategy
+            String ip = request.getRemoteAddr();
+            long wait = authIpLimiter.tryAcquire(ip);
+            if (wait > 0) {
+                authRejected.increment();
+                reject(response, wait);
+                return;
+            }
+            // Credentials are small: the body is read whatever its declared length, chunked included
+            CachedBodyRequest cached = request.getContentLengthLong() > MAX_AUTH_BODY_BYTES ? null
+                    : CachedBodyRequest.of(request);
+            if (cached == null || cached.getBody().length > MAX_AUTH_BODY_BYTES) {
+                tooLarge(response);
+                return;
+            }
+            String username = readUsername(cached.getBody());
+            if (username != null) {
+                wait = authLimiter.tryAcquire(ip + '|' + username);
+                if (wait > 0) {
+                    authRejected.increment();
+                    reject(response, wait);
+                    return;
+                }
+            }
+            filterChain.doFilter(cached, response);
+            return;
+        }
+
+        long wait = apiLimiter.tryAcquire(resolveApiKey(request));
+        if (wait > 0) {
+            apiRejected.increment();
+            reject(response, wait);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Keys a request by the subject of its token, verified once here and
+     * reused by the JwtAuthenticationFilter, or by its IP without a valid token.
+     */
+    private String resolveApiKey(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        if (StringUtils.hasText(authHeader) && authHeader.startsWith("Bearer ")) {
+            try {
+                Claims claims = jwtService.verifyToken(authHeader.substring(7));
+                request.setAttribute(JwtAuthenticationFilter.VERIFIED_CLAIMS_ATTRIBUTE, claims);
+                if (claims.getSubject() != null) {
+                    return "user:" + claims.getSubject();
+                }
+            } catch (JwtException | IllegalArgumentException ex) {
+                // Token invalide : la requête sera refusée plus loin, limitée par IP d'ici là
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private String readUsername(byte[] body) {
+        try {
+            JsonNode username = objectMapper.readTree(body).path("username");
+            return username.isTextual() ? username.asText().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"Too many requests, retry later\"}");
+    }
+
+    private void tooLarge(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"Request body too large\"}");
+    }
+
+    /**
+     * Request whose small body was read up front, so that the filter can look
+     * at it and the controller still read it.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        // One byte past the maximum tells a larger body from one of exactly the maximum
+        static CachedBodyRequest of(HttpServletRequest request) throws IOException {
+            return new CachedBodyRequest(request, request.getInputStream().readNBytes(MAX_AUTH_BODY_BYTES + 1));
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding())
+                    : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("Synchronous reads only");
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package web.rempro_api.utils.security;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Token buckets keyed by client, one rate-limiting budget per instance.
+ * <p>
+ * Each bucket is a single AtomicLong holding the theoretical arrival time of
+ * the next request (GCRA, equivalent to a token bucket refilled continuously),
+ * updated with CAS: no lock is taken on the request path. Buckets idle for
+ * longer than a full refill are evicted, as they would be full again anyway.
+ */
+public class RateLimiter {
+
+    // Theoretical arrival of a bucket never used
+    private static final long UNUSED = Long.MIN_VALUE;
+
+    private final LongSupplier nanoTime;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    /**
+     * @param capacity - Requests a client may burst at once.
+     * @param period   - Time to refill a whole bucket, so the sustained rate is
+     *                 capacity per period.
+     * @param maxKeys  - Maximum number of tracked clients.
+     */
+    public RateLimiter(int capacity, Duration period, long maxKeys) {
+        this(capacity, period, maxKeys, System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime - The clock of the buckets and of their idle eviction,
+     *                 replaced by tests.
+     */
+    RateLimiter(int capacity, Duration period, long maxKeys, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.emissionIntervalNanos = period.toNanos() / capacity;
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(period)
+                .ticker(nanoTime::getAsLong)
+                .build();
+    }
+
+    /**
+     * Takes one token from the bucket of a client.
+     *
+     * @param key - The client, e.g. its IP or the subject of its token.
+     * @return 0 if the request is allowed, otherwise the nanoseconds to wait
+     *         before the next token is available.
+     */
+    public long tryAcquire(String key) {
+        AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(UNUSED));
+        long now = nanoTime.getAsLong();
+
+        while (true) {
+            long current = theoreticalArrival.get();
+            long arrival = current == UNUSED || current - now < 0 ? now : current;
+            long wait = arrival - burstToleranceNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            long next = arrival + emissionIntervalNanos;
+            // nanoTime may wrap around: a next arrival landing on the sentinel is moved by 1ns
+            if (theoreticalArrival.compareAndSet(current, next == UNUSED ? next + 1 : next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return The number of clients tracked, once idle buckets are evicted.
+     */
+    long trackedKeys() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,24 @@
+-- Schema as created by Hibernate before the migrations took over. Databases that
+-- already have it are baselined at this version and skip this script.
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    password VARCHAR(255),
+    username VARCHAR(255) UNIQUE,
+    role VARCHAR(255) CHECK (role IN ('ADMIN', 'USER'))
+);
+
+CREATE SEQUENCE followed_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE followed (
+    id BIGINT PRIMARY KEY,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    -- Serialized java.lang.Number values
+    episode_number BYTEA,
+    level_number BYTEA,
+    name VARCHAR(255),
+    level_type VARCHAR(255) CHECK (level_type IN ('MOVIE', 'ANIME', 'SERIES', 'WEBTOON'))
+);
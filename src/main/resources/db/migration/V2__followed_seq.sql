@@ -0,0 +1,5 @@
+-- Followed ids come from the pooled followed_seq (increment 50). Databases baselined
+-- from an IDENTITY column may lack the sequence, or have it behind the ids in use.
+CREATE SEQUENCE IF NOT EXISTS followed_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('followed_seq', GREATEST((SELECT last_value FROM followed_seq), (SELECT COALESCE(MAX(id), 0) FROM followed) + 50));
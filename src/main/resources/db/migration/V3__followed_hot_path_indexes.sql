@@ -0,0 +1,14 @@
+-- Indexes matching the FollowedRepository queries. Built concurrently so large
+-- tables stay writable (see the .conf file: no surrounding transaction).
+
+-- Per-user keyset listing and export: WHERE user_id = ? ORDER BY updated_at DESC, id DESC
+CREATE INDEX CONCURRENTLY IF NOT EXISTS followed_user_updated_idx ON followed (user_id, updated_at DESC, id DESC);
+
+-- Per-user filtering by level type
+CREATE INDEX CONCURRENTLY IF NOT EXISTS followed_user_level_type_idx ON followed (user_id, level_type);
+
+-- Per-user lookups and sorting by name
+CREATE INDEX CONCURRENTLY IF NOT EXISTS followed_user_name_idx ON followed (user_id, name);
+
+-- Admin-wide keyset listing: ORDER BY updated_at DESC, id DESC
+CREATE INDEX CONCURRENTLY IF NOT EXISTS followed_updated_idx ON followed (updated_at DESC, id DESC);
@@ -0,0 +1,14 @@
+-- Deletion log read by the delta sync (GET /followed/user/changes): one row per
+-- deleted Followed item, kept for rempro.sync.tombstone-retention.
+-- Created and updated items are found through followed_user_updated_idx (V3).
+CREATE TABLE followed_tombstone (
+    followed_id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    deleted_at TIMESTAMP(6) NOT NULL
+);
+
+-- Per-user changes: WHERE user_id = ? AND deleted_at >= ?
+CREATE INDEX followed_tombstone_user_deleted_idx ON followed_tombstone (user_id, deleted_at);
+
+-- Retention purge: WHERE deleted_at < ?
+CREATE INDEX followed_tombstone_deleted_idx ON followed_tombstone (deleted_at);
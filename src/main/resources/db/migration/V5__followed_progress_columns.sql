@@ -0,0 +1,64 @@
+-- Level and episode numbers become plain integers, so that progress can be
+-- incremented by the database in a single UPDATE, and followed gets a version
+-- column for optimistic locking.
+--
+-- The bytea columns hold java.lang.Number values in Java serialization format:
+-- the class name starts at byte 9 (its length is in bytes 7-8) and the value is
+-- the last 4 (Integer) or 8 (Long, Double) bytes, big-endian. Values that are
+-- not whole numbers in the integer range stop the migration rather than being
+-- silently changed. The ALTER rewrites the table under an exclusive lock.
+
+CREATE FUNCTION followed_deserialize_number(serialized BYTEA, followed_id BIGINT) RETURNS INTEGER
+LANGUAGE plpgsql IMMUTABLE AS $$
+DECLARE
+    class_name TEXT;
+    bits BIGINT;
+    mantissa BIGINT;
+    shift INTEGER;
+    result NUMERIC;
+BEGIN
+    IF serialized IS NULL THEN
+        RETURN NULL;
+    END IF;
+    class_name := convert_from(
+            substring(serialized FROM 9 FOR get_byte(serialized, 6) * 256 + get_byte(serialized, 7)), 'UTF8');
+
+    IF class_name = 'java.lang.Integer' THEN
+        RETURN ('x' || encode(substring(serialized FROM length(serialized) - 3), 'hex'))::BIT(32)::INTEGER;
+    END IF;
+
+    bits := ('x' || encode(substring(serialized FROM length(serialized) - 7), 'hex'))::BIT(64)::BIGINT;
+    IF class_name = 'java.lang.Long' THEN
+        result := bits;
+    ELSIF class_name = 'java.lang.Double' THEN
+        -- IEEE 754: value = (2^52 + mantissa) * 2^(exponent - 1075), zero aside
+        IF bits & 9223372036854775807 = 0 THEN
+            result := 0;
+        ELSE
+            mantissa := (bits & 4503599627370495) | 4503599627370496;
+            shift := 1075 - ((bits >> 52) & 2047)::INTEGER;
+            IF shift > 52 OR (shift > 0 AND mantissa % (1::BIGINT << shift) <> 0) THEN
+                RAISE EXCEPTION 'followed %: % is not a whole number', followed_id, class_name;
+            END IF;
+            result := CASE WHEN shift > 0 THEN mantissa >> shift ELSE mantissa * 2::NUMERIC ^ (-shift) END;
+            IF bits < 0 THEN
+                result := -result;
+            END IF;
+        END IF;
+    ELSE
+        RAISE EXCEPTION 'followed %: unsupported number type %', followed_id, class_name;
+    END IF;
+
+    IF result NOT BETWEEN -2147483648 AND 2147483647 THEN
+        RAISE EXCEPTION 'followed %: % is out of the integer range', followed_id, result;
+    END IF;
+    RETURN result::INTEGER;
+END;
+$$;
+
+ALTER TABLE followed
+    ALTER COLUMN level_number TYPE INTEGER USING followed_deserialize_number(level_number, id),
+    ALTER COLUMN episode_number TYPE INTEGER USING followed_deserialize_number(episode_number, id),
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+DROP FUNCTION followed_deserialize_number(BYTEA, BIGINT);
@@ -0,0 +1,23 @@
+-- Per-user aggregate served by GET /followed/user/stats, kept up to date by every
+-- write of followed in the same transaction, and recomputed by the rebuild job
+-- (rempro.stats.rebuild-cron). A new LevelType needs a new count column.
+CREATE TABLE followed_stats (
+    user_id BIGINT PRIMARY KEY REFERENCES users (id) ON DELETE CASCADE,
+    movie_count BIGINT NOT NULL DEFAULT 0,
+    anime_count BIGINT NOT NULL DEFAULT 0,
+    series_count BIGINT NOT NULL DEFAULT 0,
+    webtoon_count BIGINT NOT NULL DEFAULT 0,
+    total_episodes BIGINT NOT NULL DEFAULT 0
+);
+
+-- Writes of instances still running the previous version are not counted: the
+-- rebuild job repairs them
+INSERT INTO followed_stats (user_id, movie_count, anime_count, series_count, webtoon_count, total_episodes)
+SELECT user_id,
+       COUNT(*) FILTER (WHERE level_type = 'MOVIE'),
+       COUNT(*) FILTER (WHERE level_type = 'ANIME'),
+       COUNT(*) FILTER (WHERE level_type = 'SERIES'),
+       COUNT(*) FILTER (WHERE level_type = 'WEBTOON'),
+       COALESCE(SUM(episode_number), 0)
+FROM followed
+GROUP BY user_id;
@@ -0,0 +1,9 @@
+-- Tokens revoked by POST /auth/logout before their expiration, refused by
+-- JwtAuthenticationFilter. A row is only useful until expires_at, then purged.
+CREATE TABLE revoked_token (
+    jti VARCHAR(64) PRIMARY KEY,
+    expires_at TIMESTAMP(6) NOT NULL
+);
+
+-- Reload at startup (WHERE expires_at > ?) and purge (WHERE expires_at < ?)
+CREATE INDEX revoked_token_expires_idx ON revoked_token (expires_at);
@@ -0,0 +1,20 @@
+-- Refresh tokens of POST /auth/refresh, stored as the SHA-256 of the opaque
+-- token. Each use rotates the token: the row is marked used and its successor
+-- joins the same family, the chain of one login. Using a token twice deletes
+-- its whole family.
+CREATE TABLE refresh_token (
+    token_hash VARCHAR(64) PRIMARY KEY,
+    family_id VARCHAR(36) NOT NULL,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    expires_at TIMESTAMP(6) NOT NULL,
+    used_at TIMESTAMP(6)
+);
+
+-- Reuse detection and logout: WHERE family_id = ?
+CREATE INDEX refresh_token_family_idx ON refresh_token (family_id);
+
+-- Password change: WHERE user_id = ?
+CREATE INDEX refresh_token_user_idx ON refresh_token (user_id);
+
+-- Purge: WHERE expires_at < ?
+CREATE INDEX refresh_token_expires_idx ON refresh_token (expires_at);
@@ -0,0 +1,213 @@
+package web.rempro_api.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import web.rempro_api.users.Users;
+import web.rempro_api.users.UsersRepository;
+import web.rempro_api.users.UsersService;
+import web.rempro_api.utils.cache.CacheInvalidationBus;
+import web.rempro_api.utils.enums.Role;
+import web.rempro_api.utils.exception.CustomAuthException;
+import web.rempro_api.utils.exception.ExceptionAuthUtil;
+
+/**
+ * Checks the rotation of the refresh tokens against the real transactions:
+ * a reused token ends its session even though the call fails, and logouts and
+ * password changes end the sessions they should. Needs a disposable PostgreSQL
+ * database: set REMPRO_TEST_DB_URL (and REMPRO_TEST_DB_USERNAME /
+ * REMPRO_TEST_DB_PASSWORD). The migrations run in a throwaway schema that is
+ * dropped afterwards.
+ */
+@EnabledIfEnvironmentVariable(named = "REMPRO_TEST_DB_URL", matches = ".+")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=${REMPRO_TEST_DB_URL}",
+        "spring.datasource.username=${REMPRO_TEST_DB_USERNAME:}",
+        "spring.datasource.password=${REMPRO_TEST_DB_PASSWORD:}",
+        "spring.datasource.hikari.schema=" + RefreshTokenServiceTest.SCHEMA,
+        "spring.flyway.schemas=" + RefreshTokenServiceTest.SCHEMA })
+@Import({ RefreshTokenService.class, UsersService.class, ExceptionAuthUtil.class,
+        RefreshTokenServiceTest.Metrics.class })
+// Each call commits or rolls back on its own, as when called by the controllers
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceTest {
+
+    static final String SCHEMA = "refresh_token_check";
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    @Autowired
+    private UsersService usersService;
+    @Autowired
+    private UsersRepository usersRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry registry;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+    @MockBean
+    private UserCache userCache;
+    @MockBean
+    private CacheInvalidationBus cacheBus;
+
+    private Users bob;
+    private Users alice;
+
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @BeforeEach
+    void createUsers() {
+        jdbcTemplate.execute("TRUNCATE users CASCADE");
+        bob = usersRepository.save(Users.builder().username("bob").password("hash").role(Role.USER).build());
+        alice = usersRepository.save(Users.builder().username("alice").password("hash").role(Role.USER).build());
+    }
+
+    @AfterAll
+    static void dropSchema() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(System.getenv("REMPRO_TEST_DB_URL"),
+                System.getenv("REMPRO_TEST_DB_USERNAME"), System.getenv("REMPRO_TEST_DB_PASSWORD"));
+                Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        }
+    }
+
+    @Test
+    void rotatesATokenIntoItsSuccessor() {
+        String first = refreshTokenService.issue(bob);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(first);
+
+        assertNotEquals(first, rotation.refreshToken());
+        assertEquals(bob.getId(), rotation.user().getId());
+        // The used token is kept to detect its reuse
+        assertEquals(2, tokensOf(bob));
+        assertEquals(bob.getId(), refreshTokenService.rotate(rotation.refreshToken()).user().getId());
+    }
+
+    @Test
+    void reuseEndsTheWholeSessionAndTheDeletionIsCommitted() {
+        String first = refreshTokenService.issue(bob);
+        String successor = refreshTokenService.rotate(first).refreshToken();
+        String otherSession = refreshTokenService.issue(bob);
+
+        CustomAuthException ex = assertThrows(CustomAuthException.class, () -> refreshTokenService.rotate(first));
+
+        assertEquals(401, ex.getStatusCode());
+        assertEquals("Refresh token already used", ex.getMessage());
+        assertEquals(1, registry.get("rempro.auth.refresh.reuse").counter().count());
+        // Read from another connection: the 401 did not roll the deletion back
+        assertEquals(1, tokensOf(bob));
+        assertUnknown(successor);
+        assertEquals(bob.getId(), refreshTokenService.rotate(otherSession).user().getId());
+    }
+
+    @Test
+    void refusesAnExpiredToken() {
+        String token = refreshTokenService.issue(bob);
+        jdbcTemplate.update("UPDATE refresh_token SET expires_at = now() - interval '1 second'");
+
+        CustomAuthException ex = assertThrows(CustomAuthException.class, () -> refreshTokenService.rotate(token));
+
+        assertEquals(401, ex.getStatusCode());
+        assertEquals("Refresh token expired", ex.getMessage());
+        assertEquals(1, tokensOf(bob));
+    }
+
+    @Test
+    void refusesAnUnknownToken() {
+        refreshTokenService.issue(bob);
+
+        assertUnknown("not-a-refresh-token");
+    }
+
+    @Test
+    void logoutEndsOnlyTheSessionOfItsToken() {
+        String first = refreshTokenService.issue(bob);
+        String successor = refreshTokenService.rotate(first).refreshToken();
+        String otherSession = refreshTokenService.issue(bob);
+
+        refreshTokenService.revoke(successor);
+        // Unknown or already revoked tokens are ignored
+        refreshTokenService.revoke(successor);
+
+        assertUnknown(successor);
+        assertUnknown(first);
+        assertEquals(bob.getId(), refreshTokenService.rotate(otherSession).user().getId());
+    }
+
+    @Test
+    void passwordChangeEndsEverySessionOfTheUser() {
+        String bobLaptop = refreshTokenService.issue(bob);
+        String bobPhone = refreshTokenService.rotate(refreshTokenService.issue(bob)).refreshToken();
+        String aliceSession = refreshTokenService.issue(alice);
+        when(passwordEncoder.matches(any(), any())).thenReturn(true);
+        when(passwordEncoder.encode(any())).thenReturn("new-hash");
+
+        usersService.updatePassword("bob", "current", "new");
+
+        assertEquals(0, tokensOf(bob));
+        assertUnknown(bobLaptop);
+        assertUnknown(bobPhone);
+        assertEquals(alice.getId(), refreshTokenService.rotate(aliceSession).user().getId());
+    }
+
+    @Test
+    void failedPasswordChangeKeepsTheSessions() {
+        String session = refreshTokenService.issue(bob);
+        when(passwordEncoder.matches(any(), any())).thenReturn(false);
+
+        assertThrows(CustomAuthException.class, () -> usersService.updatePassword("bob", "wrong", "new"));
+
+        assertEquals(bob.getId(), refreshTokenService.rotate(session).user().getId());
+    }
+
+    private int tokensOf(Users user) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM refresh_token WHERE user_id = ?", Integer.class,
+                user.getId());
+    }
+
+    private void assertUnknown(String token) {
+        CustomAuthException ex = assertThrows(CustomAuthException.class, () -> refreshTokenService.rotate(token));
+        assertEquals(401, ex.getStatusCode());
+        assertEquals("Invalid refresh token", ex.getMessage());
+    }
+}
@@ -0,0 +1,42 @@
+package web.rempro_api.followed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that BoundedLineReader splits lines as BufferedReader does and skips
+ * the lines it does not keep.
+ */
+class BoundedLineReaderTest {
+
+    @Test
+    void splitsOnEveryKindOfLineBreak() throws IOException {
+        BoundedLineReader lines = new BoundedLineReader(new StringReader("a\nb\r\nc\rd\n\ne"), 10);
+
+        assertEquals("a", lines.readLine());
+        assertEquals("b", lines.readLine());
+        assertEquals("c", lines.readLine());
+        assertEquals("d", lines.readLine());
+        assertEquals("", lines.readLine());
+        assertEquals("e", lines.readLine());
+        assertNull(lines.readLine());
+    }
+
+    @Test
+    void skipsALineLongerThanTheMaximumAndGoesOn() throws IOException {
+        // Longer than the internal buffer as well
+        String huge = "x".repeat(100_000);
+        BoundedLineReader lines = new BoundedLineReader(new StringReader("12345\n" + huge + "\r\nnext\n"), 5);
+
+        assertEquals("12345", lines.readLine());
+        assertThrows(BoundedLineReader.LineTooLongException.class, lines::readLine);
+        assertEquals("next", lines.readLine());
+        assertNull(lines.readLine());
+    }
+}
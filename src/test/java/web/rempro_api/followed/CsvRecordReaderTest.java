@@ -0,0 +1,95 @@
+package web.rempro_api.followed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the RFC 4180 cases the CSV import relies on.
+ */
+class CsvRecordReaderTest {
+
+    private static CsvRecordReader reader(String csv) {
+        return new CsvRecordReader(new StringReader(csv), 64);
+    }
+
+    @Test
+    void splitsPlainFieldsAndKeepsEmptyOnes() throws IOException {
+        CsvRecordReader records = reader("name,levelType,,episodeNumber\n");
+
+        assertEquals(List.of("name", "levelType", "", "episodeNumber"), records.next());
+        assertNull(records.next());
+    }
+
+    @Test
+    void readsQuotedCommasAndDoubledQuotes() throws IOException {
+        CsvRecordReader records = reader("\"One, Two\",\"Say \"\"hi\"\"\",\"\"\n");
+
+        assertEquals(List.of("One, Two", "Say \"hi\"", ""), records.next());
+    }
+
+    @Test
+    void keepsLineBreaksOfQuotedFieldsAndNumbersRecordsByFirstLine() throws IOException {
+        CsvRecordReader records = reader("a,b\n\"first\nsecond\nthird\",c\nd,e\n");
+
+        assertEquals(List.of("a", "b"), records.next());
+        assertEquals(1, records.recordLineNumber());
+        assertEquals(List.of("first\nsecond\nthird", "c"), records.next());
+        assertEquals(2, records.recordLineNumber());
+        assertEquals(List.of("d", "e"), records.next());
+        assertEquals(5, records.recordLineNumber());
+    }
+
+    @Test
+    void stripsCrlfLineEndingsIncludingInsideQuotedFields() throws IOException {
+        CsvRecordReader records = reader("a,b\r\n\"x\r\ny\",z\r\n");
+
+        assertEquals(List.of("a", "b"), records.next());
+        assertEquals(List.of("x\ny", "z"), records.next());
+        assertNull(records.next());
+    }
+
+    @Test
+    void refusesAnUnterminatedQuotedField() throws IOException {
+        CsvRecordReader records = reader("a,b\n\"open,c\nstill open\n");
+
+        records.next();
+        IOException ex = assertThrows(IOException.class, records::next);
+        assertTrue(ex.getMessage().contains("line 2"), ex.getMessage());
+    }
+
+    @Test
+    void refusesALineLongerThanTheMaximum() throws IOException {
+        CsvRecordReader records = reader("a,b\n" + "x".repeat(65) + "\n");
+
+        records.next();
+        IOException ex = assertThrows(IOException.class, records::next);
+        assertEquals("Record starting at line 2 is longer than 64 characters", ex.getMessage());
+    }
+
+    @Test
+    void stopsAnUnterminatedQuoteAtTheMaximumRecordLength() throws IOException {
+        // Would otherwise go on to the end of the input
+        CsvRecordReader records = reader("a,b\n\"open\n" + "0123456789\n".repeat(100_000));
+
+        records.next();
+        IOException ex = assertThrows(IOException.class, records::next);
+        assertEquals("Record starting at line 2 is longer than 64 characters", ex.getMessage());
+    }
+
+    @Test
+    void acceptsAQuotedRecordOfExactlyTheMaximumLength() throws IOException {
+        String field = "x".repeat(30);
+        // 31 + 1 line break + 32 characters
+        CsvRecordReader records = reader("\"" + field + "\n" + field + "\",\n");
+
+        assertEquals(List.of(field + "\n" + field, ""), records.next());
+    }
+}
@@ -0,0 +1,118 @@
+package web.rempro_api.followed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import web.rempro_api.users.Users;
+import web.rempro_api.users.UsersRepository;
+import web.rempro_api.utils.dto.FollowedImportSummary;
+import web.rempro_api.utils.dto.FollowedImportSummary.Rejection;
+import web.rempro_api.utils.enums.DataFormat;
+import web.rempro_api.utils.exception.ExceptionAuthUtil;
+
+/**
+ * Checks that an import reports its bad records and failed batches by line
+ * number and keeps the batches already written.
+ */
+class FollowedImportServiceTest {
+
+    private static final String VALID = "{\"name\":\"One Piece\",\"levelType\":\"anime\",\"levelNumber\":1,\"episodeNumber\":1}";
+
+    private final FollowedService followedService = mock(FollowedService.class);
+    private final FollowedRepository followedRepository = mock(FollowedRepository.class);
+    private final UsersRepository usersRepository = mock(UsersRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private FollowedImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        doCallRealMethod().when(followedService).validateRequest(any());
+        doCallRealMethod().when(followedService).buildFollowed(any(), any());
+        when(usersRepository.findByUsername("bob"))
+                .thenReturn(Optional.of(Users.builder().id(1L).username("bob").build()));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(followedRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        importService = new FollowedImportService(followedService, followedRepository, usersRepository,
+                mock(FollowedCacheInvalidator.class), mock(FollowedSearchIndex.class),
+                mock(FollowedStatsService.class), new ExceptionAuthUtil(), new ObjectMapper(), transactionManager);
+    }
+
+    private FollowedImportSummary importNdjson(String body) {
+        return importService.importFollowed(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                DataFormat.NDJSON, "bob");
+    }
+
+    @Test
+    void rejectsMalformedNullAndInvalidLinesAndImportsTheOthers() {
+        String body = String.join("\n",
+                VALID,
+                "null",
+                "{not json",
+                "",
+                "[1, 2]",
+                "{\"name\":\"No level\",\"levelType\":\"anime\",\"episodeNumber\":1}",
+                VALID);
+
+        FollowedImportSummary summary = importNdjson(body);
+
+        assertEquals(2, summary.getAccepted());
+        assertEquals(4, summary.getRejected());
+        assertEquals(List.of(2L, 3L, 5L, 6L), summary.getRejections().stream().map(Rejection::getLine).toList());
+        assertEquals("Malformed JSON record", summary.getRejections().get(0).getReason());
+        assertEquals("LevelNumber is required.", summary.getRejections().get(3).getReason());
+    }
+
+    @Test
+    void reportsTheLinesOfAFailedBatchAndKeepsTheBatchesWritten() {
+        int records = FollowedImportService.IMPORT_BATCH_SIZE + 20;
+        String body = IntStream.range(0, records).mapToObj(i -> VALID).collect(Collectors.joining("\n"));
+        when(followedRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("constraint"));
+
+        FollowedImportSummary summary = importNdjson(body);
+
+        assertEquals(FollowedImportService.IMPORT_BATCH_SIZE, summary.getAccepted());
+        assertEquals(20, summary.getRejected());
+        assertEquals(FollowedImportService.IMPORT_BATCH_SIZE + 1L, summary.getRejections().get(0).getLine());
+        assertEquals("Batch could not be saved", summary.getRejections().get(0).getReason());
+        verify(transactionManager).commit(any());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void rejectsARecordLongerThanTheMaximumAndImportsTheOthers() {
+        String huge = "{\"name\":\"" + "x".repeat(FollowedImportService.MAX_RECORD_LENGTH) + "\"}";
+
+        FollowedImportSummary summary = importNdjson(String.join("\n", VALID, huge, VALID));
+
+        assertEquals(2, summary.getAccepted());
+        assertEquals(1, summary.getRejected());
+        assertEquals(2L, summary.getRejections().get(0).getLine());
+        assertEquals("Record longer than " + FollowedImportService.MAX_RECORD_LENGTH + " characters",
+                summary.getRejections().get(0).getReason());
+    }
+}
@@ -0,0 +1,121 @@
+package web.rempro_api.followed;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+/**
+ * Checks that the PostgreSQL planner serves the FollowedRepository queries from
+ * the indexes created by the migrations. Needs a disposable PostgreSQL database:
+ * set REMPRO_TEST_DB_URL (and REMPRO_TEST_DB_USERNAME / REMPRO_TEST_DB_PASSWORD).
+ * Everything happens in a throwaway schema that is dropped afterwards.
+ */
+@EnabledIfEnvironmentVariable(named = "REMPRO_TEST_DB_URL", matches = ".+")
+class FollowedIndexUsageTest {
+
+    private static final String SCHEMA = "index_usage_check";
+    private static final String VIEW_COLUMNS = """
+            f.id, f.name, f.level_type, f.level_number, f.episode_number, f.created_at, f.updated_at, u.id, u.username
+            FROM followed f JOIN users u ON u.id = f.user_id
+            """;
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        String url = System.getenv("REMPRO_TEST_DB_URL");
+        String username = System.getenv("REMPRO_TEST_DB_USERNAME");
+        String password = System.getenv("REMPRO_TEST_DB_PASSWORD");
+
+        Flyway.configure()
+                .dataSource(url, username, password)
+                .schemas(SCHEMA)
+                // Session-level lock as in application.yml: V3's CREATE INDEX CONCURRENTLY
+                // would wait forever for the transaction the default lock keeps open
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+
+        connection = DriverManager.getConnection(url, username, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET search_path TO " + SCHEMA);
+            // 1,000 users with 200 items each: enough rows for a sequential scan to lose
+            statement.execute("""
+                    INSERT INTO users (username, password, role)
+                    SELECT 'user' || n, 'x', 'USER' FROM generate_series(1, 1000) n""");
+            statement.execute("""
+                    INSERT INTO followed (id, user_id, name, level_type, created_at, updated_at)
+                    SELECT n, 1 + n % 1000, 'name' || n, (ARRAY['MOVIE', 'ANIME', 'SERIES', 'WEBTOON'])[1 + n % 4],
+                           now() - n * interval '1 second', now() - n * interval '1 second'
+                    FROM generate_series(1, 200000) n""");
+            statement.execute("ANALYZE users");
+            statement.execute("ANALYZE followed");
+        }
+    }
+
+    @AfterAll
+    static void dropSchema() throws SQLException {
+        if (connection == null) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    void userFirstPageUsesUserUpdatedIndex() throws SQLException {
+        assertUsesIndex("SELECT " + VIEW_COLUMNS + """
+                 WHERE f.user_id = 42 ORDER BY f.updated_at DESC, f.id DESC LIMIT 51""",
+                "followed_user_updated_idx");
+    }
+
+    @Test
+    void userNextPageUsesUserUpdatedIndex() throws SQLException {
+        assertUsesIndex("SELECT " + VIEW_COLUMNS + """
+                 WHERE f.user_id = 42
+                   AND (f.updated_at < now() - interval '1 day'
+                        OR (f.updated_at = now() - interval '1 day' AND f.id < 100000))
+                 ORDER BY f.updated_at DESC, f.id DESC LIMIT 51""",
+                "followed_user_updated_idx");
+    }
+
+    @Test
+    void allFollowedFirstPageUsesUpdatedIndex() throws SQLException {
+        assertUsesIndex("SELECT " + VIEW_COLUMNS + """
+                 ORDER BY f.updated_at DESC, f.id DESC LIMIT 51""",
+                "followed_updated_idx");
+    }
+
+    @Test
+    void userLevelTypeFilterUsesAnIndex() throws SQLException {
+        assertUsesIndex("SELECT f.* FROM followed f WHERE f.user_id = 42 AND f.level_type = 'ANIME'",
+                "followed_user_");
+    }
+
+    private static void assertUsesIndex(String query, String expectedIndex) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery("EXPLAIN " + query)) {
+            while (rows.next()) {
+                plan.append(rows.getString(1)).append('\n');
+            }
+        }
+        assertTrue(plan.toString().contains(expectedIndex), () -> "Expected " + expectedIndex + " in plan:\n" + plan);
+        assertFalse(plan.toString().contains("Seq Scan on followed"), () -> "Sequential scan in plan:\n" + plan);
+    }
+}
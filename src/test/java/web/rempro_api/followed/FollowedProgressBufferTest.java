@@ -0,0 +1,224 @@
+package web.rempro_api.followed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import web.rempro_api.utils.dto.CursorPage;
+import web.rempro_api.utils.dto.FollowedView;
+import web.rempro_api.utils.exception.ExceptionAuthUtil;
+
+/**
+ * Checks how FollowedProgressBuffer merges updates, what a flush writes and
+ * keeps when the database fails, and what reads see while a flush runs. The
+ * rows are kept in a map that the mocked batch update writes to.
+ */
+class FollowedProgressBufferTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final FollowedCacheInvalidator cacheInvalidator = mock(FollowedCacheInvalidator.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FollowedProgressBuffer buffer = new FollowedProgressBuffer(true, 100, 100, jdbcTemplate,
+            new NoDatabaseTransactions(), mock(TaskScheduler.class), cacheInvalidator,
+            mock(FollowedStatsService.class), new ExceptionAuthUtil(), registry);
+
+    private final Map<Long, FollowedView> rows = new ConcurrentHashMap<>(Map.of(
+            1L, view(1L, 2, 10),
+            2L, view(2L, 1, 5)));
+    // Rows of each batch update, including the failed ones
+    private final List<List<Object[]>> batches = new ArrayList<>();
+
+    @Test
+    void mergesIncrementsIntoOneRow() {
+        writesRows();
+
+        buffer.offer(1L, "bob", increment(0, 1), loader(1L));
+        FollowedView updated = buffer.offer(1L, "bob", increment(1, 2), loader(1L));
+
+        assertEquals(3, updated.getLevelNumber());
+        assertEquals(13, updated.getEpisodeNumber());
+        // One version step per merged update
+        assertEquals(9, updated.getVersion());
+
+        buffer.flush();
+
+        assertEquals(1, batches.size());
+        Object[] row = batches.get(0).get(0);
+        assertEquals(List.of(false, 1, false, 3, 2, 1L), List.of(row[0], row[1], row[3], row[4], row[7], row[8]));
+        assertEquals(updated, read(1L));
+        verify(cacheInvalidator).evict(List.of(1L), "bob");
+    }
+
+    @Test
+    void aSetNumberReplacesAPendingIncrement() {
+        writesRows();
+
+        buffer.offer(1L, "bob", increment(1, 4), loader(1L));
+        FollowedView updated = buffer.offer(1L, "bob", new FollowedProgress(false, 0, true, 20), loader(1L));
+
+        assertEquals(3, updated.getLevelNumber());
+        assertEquals(20, updated.getEpisodeNumber());
+
+        buffer.flush();
+
+        Object[] row = batches.get(0).get(0);
+        assertEquals(List.of(false, 1, true, 20, 2), List.of(row[0], row[1], row[3], row[4], row[7]));
+        assertEquals(20, read(1L).getEpisodeNumber());
+    }
+
+    @Test
+    void keepsTheChangesOfAFailedFlush() {
+        AtomicInteger failures = new AtomicInteger(2);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            batches.add(batch);
+            if (failures.getAndDecrement() > 0) {
+                throw new DataAccessResourceFailureException("Database unavailable");
+            }
+            batch.forEach(this::writeRow);
+            return new int[batch.size()];
+        });
+
+        buffer.offer(1L, "bob", increment(0, 1), loader(1L));
+        buffer.flush();
+
+        // The batch, then the row alone, failed: nothing was written, the change is still read
+        assertEquals(2, batches.size());
+        assertEquals(10, rows.get(1L).getEpisodeNumber());
+        assertEquals(11, read(1L).getEpisodeNumber());
+
+        // Merged with the update buffered since
+        buffer.offer(1L, "bob", increment(0, 2), loader(1L));
+        buffer.flush();
+
+        assertEquals(List.of(false, 3, 2), List.of(batches.get(2).get(0)[3], batches.get(2).get(0)[4],
+                batches.get(2).get(0)[7]));
+        assertEquals(13, rows.get(1L).getEpisodeNumber());
+        assertEquals(13, read(1L).getEpisodeNumber());
+    }
+
+    @Test
+    void dropsARowRefusedByTheDatabase() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            batches.add(batch);
+            if (batch.stream().anyMatch(row -> row[8].equals(2L))) {
+                throw new DataIntegrityViolationException("check constraint");
+            }
+            batch.forEach(this::writeRow);
+            return new int[batch.size()];
+        });
+
+        buffer.offer(1L, "bob", increment(0, 1), loader(1L));
+        buffer.offer(2L, "bob", increment(0, -9), loader(2L));
+        buffer.offer(2L, "bob", increment(0, 1), loader(2L));
+        buffer.flush();
+
+        assertEquals(11, read(1L).getEpisodeNumber());
+        // Dropped, not retried: the database row is read again
+        assertEquals(5, read(2L).getEpisodeNumber());
+        assertEquals(2, registry.get("rempro.progress.buffer.dropped").counter().count());
+        int calls = batches.size();
+        buffer.flush();
+        assertEquals(calls, batches.size());
+    }
+
+    @Test
+    void readsSeeTheChangesBeingWrittenOnce() {
+        List<FollowedView> duringFlush = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            // The rows are not written yet and the changes left the pending ones
+            duringFlush.add(CompletableFuture.supplyAsync(() -> read(1L)).join());
+            duringFlush.addAll(CompletableFuture.supplyAsync(() -> buffer.readPage(
+                    () -> new CursorPage<>(List.of(rows.get(1L), rows.get(2L)), null)).getItems()).join());
+            List<Object[]> batch = invocation.getArgument(1);
+            batch.forEach(this::writeRow);
+            return new int[batch.size()];
+        });
+
+        FollowedView updated = buffer.offer(1L, "bob", increment(1, 2), loader(1L));
+        buffer.flush();
+
+        assertEquals(List.of(updated, updated, rows.get(2L)), duringFlush);
+        // Written: the row alone, not the row plus the change
+        assertEquals(updated, read(1L));
+        assertEquals(updated, rows.get(1L));
+    }
+
+    private void writesRows() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            batches.add(batch);
+            batch.forEach(this::writeRow);
+            return new int[batch.size()];
+        });
+    }
+
+    // Same arguments as FollowedProgressBuffer.UPDATE_SQL
+    private void writeRow(Object[] row) {
+        FollowedProgress progress = new FollowedProgress((boolean) row[0], (int) row[1], (boolean) row[3],
+                (int) row[4]);
+        rows.compute((Long) row[8], (id, view) -> progress.applyTo(view).toBuilder()
+                .version(view.getVersion() + (int) row[7])
+                .build());
+    }
+
+    private FollowedView read(Long id) {
+        return buffer.read(loader(id));
+    }
+
+    private Supplier<FollowedView> loader(Long id) {
+        return () -> rows.get(id);
+    }
+
+    private static FollowedProgress increment(int level, int episode) {
+        return new FollowedProgress(false, level, false, episode);
+    }
+
+    private static FollowedView view(Long id, int level, int episode) {
+        return FollowedView.builder().id(id).name("Followed " + id).levelNumber(level).episodeNumber(episode)
+                .version(7L).ownerId(1L).ownerUsername("bob").build();
+    }
+
+    /** Runs the transaction synchronizations, as around a real commit. */
+    private static final class NoDatabaseTransactions extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package web.rempro_api.followed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Checks that V5__followed_progress_columns.sql decodes the level and episode
+ * numbers stored by V4-era instances, Java-serialized java.lang.Number values,
+ * and stops on the values it cannot keep. Needs a disposable PostgreSQL
+ * database: set REMPRO_TEST_DB_URL (and REMPRO_TEST_DB_USERNAME /
+ * REMPRO_TEST_DB_PASSWORD). Every test migrates a throwaway schema to V4,
+ * seeds it, then runs V5; the schema is dropped afterwards.
+ */
+@EnabledIfEnvironmentVariable(named = "REMPRO_TEST_DB_URL", matches = ".+")
+class FollowedProgressMigrationTest {
+
+    private static final String SCHEMA = "progress_migration_check";
+
+    private Connection connection;
+
+    @BeforeEach
+    void migrateToV4() throws SQLException {
+        flyway("4").migrate();
+        connection = DriverManager.getConnection(System.getenv("REMPRO_TEST_DB_URL"),
+                System.getenv("REMPRO_TEST_DB_USERNAME"), System.getenv("REMPRO_TEST_DB_PASSWORD"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET search_path TO " + SCHEMA);
+            statement.execute("INSERT INTO users (id, username, password, role) VALUES (1, 'owner', 'x', 'USER')");
+        }
+    }
+
+    @AfterEach
+    void dropSchema() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    void decodesIntegerLongAndDoubleValues() throws Exception {
+        Map<Number, Integer> expected = new LinkedHashMap<>();
+        expected.put(0, 0);
+        expected.put(-7, -7);
+        expected.put(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        expected.put(Integer.MIN_VALUE, Integer.MIN_VALUE);
+        expected.put(0L, 0);
+        expected.put(123L, 123);
+        expected.put(-5L, -5);
+        expected.put((long) Integer.MAX_VALUE, Integer.MAX_VALUE);
+        expected.put((long) Integer.MIN_VALUE, Integer.MIN_VALUE);
+        expected.put(0.0, 0);
+        expected.put(-0.0, 0);
+        expected.put(1.0, 1);
+        expected.put(12.0, 12);
+        expected.put(-3.0, -3);
+        expected.put(1e9, 1_000_000_000);
+        expected.put((double) Integer.MAX_VALUE, Integer.MAX_VALUE);
+        expected.put((double) Integer.MIN_VALUE, Integer.MIN_VALUE);
+
+        long id = 0;
+        for (Number value : expected.keySet()) {
+            insert(++id, value, value);
+        }
+        insert(++id, null, null);
+
+        flyway(null).migrate();
+
+        try (Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery(
+                        "SELECT level_number, episode_number, version FROM followed ORDER BY id")) {
+            for (Map.Entry<Number, Integer> entry : expected.entrySet()) {
+                assertTrue(rows.next());
+                String label = entry.getKey().getClass().getSimpleName() + " " + entry.getKey();
+                assertEquals(entry.getValue(), rows.getObject(1), label);
+                assertEquals(entry.getValue(), rows.getObject(2), label);
+                assertEquals(0L, rows.getLong(3));
+            }
+            assertTrue(rows.next());
+            assertNull(rows.getObject(1));
+            assertNull(rows.getObject(2));
+        }
+    }
+
+    static Stream<Arguments> valuesStoppingTheMigration() {
+        return Stream.of(
+                Arguments.of(1.5, "is not a whole number"),
+                Arguments.of(-0.25, "is not a whole number"),
+                Arguments.of(1e-300, "is not a whole number"),
+                Arguments.of(Double.NaN, "is out of the integer range"),
+                Arguments.of(Double.POSITIVE_INFINITY, "is out of the integer range"),
+                Arguments.of(3e9, "is out of the integer range"),
+                Arguments.of(-2147483649.0, "is out of the integer range"),
+                Arguments.of(2147483648L, "is out of the integer range"),
+                Arguments.of(Long.MIN_VALUE, "is out of the integer range"),
+                Arguments.of((short) 3, "unsupported number type java.lang.Short"),
+                Arguments.of(BigDecimal.ONE, "unsupported number type java.math.BigDecimal"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("valuesStoppingTheMigration")
+    void stopsOnValuesItCannotKeep(Number value, String reason) throws Exception {
+        insert(1, 1, 1);
+        insert(2, 1, value);
+
+        FlywayException ex = assertThrows(FlywayException.class, () -> flyway(null).migrate());
+        assertTrue(ex.getMessage().contains("followed 2: ") && ex.getMessage().contains(reason), ex.getMessage());
+
+        // Rolled back as a whole: the columns still hold the serialized values
+        try (Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery("""
+                        SELECT data_type FROM information_schema.columns
+                        WHERE table_schema = '%s' AND table_name = 'followed' AND column_name = 'episode_number'
+                        """.formatted(SCHEMA))) {
+            assertTrue(rows.next());
+            assertEquals("bytea", rows.getString(1));
+        }
+    }
+
+    private void insert(long id, Number levelNumber, Number episodeNumber) throws SQLException, IOException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                INSERT INTO followed (id, user_id, name, level_type, level_number, episode_number, created_at, updated_at)
+                VALUES (?, 1, 'name', 'ANIME', ?, ?, now(), now())""")) {
+            statement.setLong(1, id);
+            statement.setBytes(2, serialize(levelNumber));
+            statement.setBytes(3, serialize(episodeNumber));
+            statement.executeUpdate();
+        }
+    }
+
+    // As stored by the V4-era mapping of the Number fields
+    private static byte[] serialize(Number value) throws IOException {
+        if (value == null) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Flyway flyway(String target) {
+        var configuration = Flyway.configure()
+                .dataSource(System.getenv("REMPRO_TEST_DB_URL"), System.getenv("REMPRO_TEST_DB_USERNAME"),
+                        System.getenv("REMPRO_TEST_DB_PASSWORD"))
+                .schemas(SCHEMA)
+                // Session-level lock as in application.yml: V3's CREATE INDEX CONCURRENTLY
+                // would wait forever for the transaction the default lock keeps open
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"));
+        return (target != null ? configuration.target(target) : configuration).load();
+    }
+}
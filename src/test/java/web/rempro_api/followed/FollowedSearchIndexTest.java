@@ -0,0 +1,155 @@
+package web.rempro_api.followed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import web.rempro_api.utils.dto.FollowedSearchResult;
+import web.rempro_api.utils.enums.LevelType;
+
+/**
+ * Checks the prefix and typo matching of FollowedSearchIndex, and that an index
+ * built while a write of its owner commits is not kept.
+ */
+class FollowedSearchIndexTest {
+
+    private final FollowedSearchIndex index = new FollowedSearchIndex(100, Duration.ofMinutes(30));
+    private final List<FollowedSearchEntry> rows = new ArrayList<>(List.of(
+            entry(1L, "One Piece", LevelType.ANIME),
+            entry(2L, "Naruto", LevelType.ANIME),
+            entry(3L, "Pokémon: The Movie", LevelType.MOVIE),
+            entry(4L, "Solo Leveling", LevelType.WEBTOON),
+            entry(5L, "The Piece of Cake", LevelType.SERIES)));
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Supplier<List<FollowedSearchEntry>> loader = () -> {
+        loads.incrementAndGet();
+        return List.copyOf(rows);
+    };
+
+    @Test
+    void ranksWholeNamePrefixesThenWordPrefixes() {
+        List<FollowedSearchResult> results = search("piec");
+
+        assertEquals(List.of(1L, 5L), ids(results));
+        assertEquals(1.5, results.get(0).getScore());
+
+        results = search("one p");
+        assertEquals(2.0, results.get(0).getScore());
+        assertEquals(1L, results.get(0).getId());
+    }
+
+    @Test
+    void toleratesTyposAccentsAndPunctuation() {
+        assertEquals(List.of(2L), ids(search("narutp")));
+        assertEquals(List.of(3L), ids(search("POKEMON the")));
+        assertEquals(List.of(4L), ids(search("sol-leveling")));
+        assertEquals(List.of(), ids(search("zzz")));
+        assertEquals(List.of(), ids(search("  !! ")));
+    }
+
+    @Test
+    void filtersByLevelTypeAndLimits() {
+        assertEquals(List.of(5L), ids(index.search("bob", "piece", LevelType.SERIES, 20, loader)));
+        assertEquals(1, index.search("bob", "piece", null, 1, loader).size());
+    }
+
+    @Test
+    void keepsTheIndexUpToDateWithCommittedWrites() {
+        search("naruto");
+
+        index.onSaved("bob", List.of(followed(2L, "Naruto Shippuden", LevelType.ANIME),
+                followed(6L, "Bleach", LevelType.ANIME)));
+        index.onDeleted("bob", 1L);
+
+        assertEquals(List.of("Naruto Shippuden"), names(search("shippu")));
+        assertEquals(List.of("Bleach"), names(search("bleach")));
+        assertEquals(List.of(5L), ids(search("piece")));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void dropsAnIndexBuiltWhileAWriteOfItsOwnerCommitted() {
+        // The write commits after the load read the rows: the index would miss it
+        Supplier<List<FollowedSearchEntry>> racingLoader = () -> {
+            List<FollowedSearchEntry> stale = loader.get();
+            index.onSaved("bob", List.of(followed(6L, "Bleach", LevelType.ANIME)));
+            rows.add(entry(6L, "Bleach", LevelType.ANIME));
+            return stale;
+        };
+
+        assertEquals(List.of(), ids(index.search("bob", "bleach", null, 20, racingLoader)));
+
+        // Rebuilt on the next search, this time with the write
+        assertEquals(List.of(6L), ids(search("bleach")));
+        assertEquals(2, loads.get());
+        search("bleach");
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void dropsAnIndexBuiltWhileEverythingWasInvalidated() {
+        Supplier<List<FollowedSearchEntry>> racingLoader = () -> {
+            List<FollowedSearchEntry> rowsRead = loader.get();
+            index.invalidateAll();
+            return rowsRead;
+        };
+
+        index.search("bob", "naruto", null, 20, racingLoader);
+        search("naruto");
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void keepsOtherOwnersIndexesWhenOneIsWritten() {
+        search("naruto");
+        index.search("alice", "naruto", null, 20, loader);
+
+        index.invalidate("alice");
+        search("naruto");
+        index.search("alice", "naruto", null, 20, loader);
+
+        assertEquals(3, loads.get());
+    }
+
+    private List<FollowedSearchResult> search(String query) {
+        return index.search("bob", query, null, 20, loader);
+    }
+
+    private static List<Long> ids(List<FollowedSearchResult> results) {
+        return results.stream().map(FollowedSearchResult::getId).toList();
+    }
+
+    private static List<String> names(List<FollowedSearchResult> results) {
+        return results.stream().map(FollowedSearchResult::getName).toList();
+    }
+
+    private static Followed followed(Long id, String name, LevelType levelType) {
+        return Followed.builder().id(id).name(name).levelType(levelType).build();
+    }
+
+    private static FollowedSearchEntry entry(Long id, String name, LevelType levelType) {
+        return new FollowedSearchEntry() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public LevelType getLevelType() {
+                return levelType;
+            }
+        };
+    }
+}
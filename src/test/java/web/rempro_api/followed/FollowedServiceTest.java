@@ -0,0 +1,55 @@
+package web.rempro_api.followed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import web.rempro_api.utils.exception.CustomAuthException;
+
+/**
+ * Checks the conversion of the level and episode numbers sent by clients to
+ * the integers stored.
+ */
+class FollowedServiceTest {
+
+    @Test
+    void keepsNullAndIntegers() {
+        assertNull(FollowedService.toCount(null, "LevelNumber"));
+        assertEquals(Integer.MIN_VALUE, FollowedService.toCount(Integer.MIN_VALUE, "LevelNumber"));
+        assertEquals(Integer.MAX_VALUE, FollowedService.toCount(Integer.MAX_VALUE, "LevelNumber"));
+    }
+
+    @Test
+    void convertsWholeNumbersOfOtherTypes() {
+        assertEquals(12, FollowedService.toCount(12L, "LevelNumber"));
+        assertEquals(-3, FollowedService.toCount(-3L, "LevelNumber"));
+        assertEquals(Integer.MAX_VALUE, FollowedService.toCount((long) Integer.MAX_VALUE, "LevelNumber"));
+        assertEquals(Integer.MIN_VALUE, FollowedService.toCount((double) Integer.MIN_VALUE, "LevelNumber"));
+        assertEquals(7, FollowedService.toCount(7.0, "LevelNumber"));
+        assertEquals(0, FollowedService.toCount(-0.0, "LevelNumber"));
+        assertEquals(5, FollowedService.toCount((short) 5, "LevelNumber"));
+        assertEquals(4, FollowedService.toCount(new BigDecimal("4.000"), "LevelNumber"));
+    }
+
+    static Number[] notWholeIntegers() {
+        return new Number[] { 1.5, -0.5, 2.5f, 1e-300, Double.NaN, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, 2147483648L, -2147483649L, 2147483648.0, Long.MAX_VALUE,
+                new BigDecimal("3.25"), BigInteger.TEN.pow(30) };
+    }
+
+    @ParameterizedTest
+    @MethodSource("notWholeIntegers")
+    void refusesValuesThatAreNotWholeIntegers(Number value) {
+        CustomAuthException ex = assertThrows(CustomAuthException.class,
+                () -> FollowedService.toCount(value, "EpisodeNumber"));
+        assertEquals(400, ex.getStatusCode());
+        assertEquals("EpisodeNumber must be a whole number.", ex.getMessage());
+    }
+}
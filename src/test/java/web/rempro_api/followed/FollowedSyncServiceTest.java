@@ -0,0 +1,182 @@
+package web.rempro_api.followed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import web.rempro_api.users.Users;
+import web.rempro_api.users.UsersRepository;
+import web.rempro_api.utils.dto.FollowedChanges;
+import web.rempro_api.utils.dto.FollowedView;
+import web.rempro_api.utils.exception.CustomAuthException;
+import web.rempro_api.utils.exception.ExceptionAuthUtil;
+
+/**
+ * Checks the watermarks handed out by FollowedSyncService: the overlap kept
+ * behind each run, the paging of a run, and the full resyncs, against mocked
+ * repositories.
+ */
+class FollowedSyncServiceTest {
+
+    private static final long SECOND = 1000;
+    private static final long DAY = 86_400_000;
+
+    private final FollowedRepository followedRepository = mock(FollowedRepository.class);
+    private final FollowedTombstoneRepository tombstoneRepository = mock(FollowedTombstoneRepository.class);
+    private final UsersRepository usersRepository = mock(UsersRepository.class);
+    // 5s overlap, 30 days of tombstones, pages of 2, at most 3 deletions
+    private final FollowedSyncService syncService = new FollowedSyncService(followedRepository,
+            tombstoneRepository, usersRepository, new ExceptionAuthUtil(), Duration.ofSeconds(5),
+            Duration.ofDays(30), 2, 3);
+
+    private final Users bob = Users.builder().id(1L).username("bob").build();
+
+    @BeforeEach
+    void setUp() {
+        when(usersRepository.findByUsername("bob")).thenReturn(Optional.of(bob));
+        when(tombstoneRepository.findDeletedIdsSince(any(), any(), any())).thenReturn(List.of());
+        when(followedRepository.findChangesByCreatedByAfter(any(), any(), any(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void startsWithAFullResyncBehindTheOverlap() {
+        long before = System.currentTimeMillis();
+        FollowedChanges changes = syncService.getChanges("bob", null);
+        long after = System.currentTimeMillis();
+
+        assertTrue(changes.isFullResync());
+        FollowedSyncToken token = FollowedSyncToken.decode(changes.getWatermark());
+        assertTrue(token.isRunStart());
+        assertTrue(token.floor() >= before - 5 * SECOND && token.floor() <= after - 5 * SECOND, token.toString());
+        verifyNoInteractions(followedRepository, tombstoneRepository);
+    }
+
+    @Test
+    void startsTheNextRunAtTheOverlapFloor() {
+        long floor = System.currentTimeMillis() - 60 * SECOND;
+        List<FollowedView> rows = List.of(view(7L, floor + SECOND), view(3L, floor + 2 * SECOND));
+        when(followedRepository.findChangesByCreatedByAfter(bob, new Date(floor), Long.MIN_VALUE, Limit.of(3)))
+                .thenReturn(rows);
+        when(tombstoneRepository.findDeletedIdsSince(1L, new Date(floor), Limit.of(4))).thenReturn(List.of(9L));
+
+        long before = System.currentTimeMillis();
+        FollowedChanges changes = sync(FollowedSyncToken.start(floor));
+        long after = System.currentTimeMillis();
+
+        assertEquals(rows, changes.getUpdated());
+        assertEquals(List.of(9L), changes.getDeleted());
+        assertFalse(changes.isHasMore());
+        assertFalse(changes.isFullResync());
+        // Not the time of the last change: a write committing late may still show up behind it
+        FollowedSyncToken next = FollowedSyncToken.decode(changes.getWatermark());
+        assertTrue(next.isRunStart());
+        assertTrue(next.floor() >= before - 5 * SECOND && next.floor() <= after - 5 * SECOND, next.toString());
+    }
+
+    @Test
+    void keepsTheFloorOfARunStartedInsideTheOverlap() {
+        long floor = System.currentTimeMillis() - SECOND;
+
+        FollowedChanges changes = sync(FollowedSyncToken.start(floor));
+
+        assertEquals(FollowedSyncToken.start(floor), FollowedSyncToken.decode(changes.getWatermark()));
+    }
+
+    @Test
+    void pagesARunAfterItsLastChange() {
+        long floor = System.currentTimeMillis() - 60 * SECOND;
+        FollowedView first = view(7L, floor + SECOND);
+        FollowedView second = view(3L, floor + 2 * SECOND);
+        FollowedView third = view(5L, floor + 3 * SECOND);
+        when(followedRepository.findChangesByCreatedByAfter(bob, new Date(floor), Long.MIN_VALUE, Limit.of(3)))
+                .thenReturn(List.of(first, second, third));
+        when(tombstoneRepository.findDeletedIdsSince(1L, new Date(floor), Limit.of(4))).thenReturn(List.of(9L));
+
+        FollowedChanges page = sync(FollowedSyncToken.start(floor));
+
+        assertEquals(List.of(first, second), page.getUpdated());
+        assertEquals(List.of(9L), page.getDeleted());
+        assertTrue(page.isHasMore());
+        FollowedSyncToken continuation = FollowedSyncToken.decode(page.getWatermark());
+        assertFalse(continuation.isRunStart());
+        assertEquals(second.getUpdatedAt(), continuation.updatedAt());
+        assertEquals(second.getId(), continuation.id());
+
+        // The continuation reads after the second change, and no deletions again
+        when(followedRepository.findChangesByCreatedByAfter(bob, second.getUpdatedAt(), second.getId(), Limit.of(3)))
+                .thenReturn(List.of(third));
+        FollowedChanges last = syncService.getChanges("bob", page.getWatermark());
+
+        assertEquals(List.of(third), last.getUpdated());
+        assertEquals(List.of(), last.getDeleted());
+        assertFalse(last.isHasMore());
+        verify(tombstoneRepository).findDeletedIdsSince(any(), any(), any());
+        // The run ends on the floor chosen when it started
+        assertEquals(FollowedSyncToken.start(continuation.floor()), FollowedSyncToken.decode(last.getWatermark()));
+    }
+
+    @Test
+    void asksForAFullResyncWhenTooManyDeletions() {
+        long floor = System.currentTimeMillis() - 60 * SECOND;
+        when(tombstoneRepository.findDeletedIdsSince(1L, new Date(floor), Limit.of(4)))
+                .thenReturn(List.of(1L, 2L, 3L, 4L));
+
+        FollowedChanges changes = sync(FollowedSyncToken.start(floor));
+
+        assertTrue(changes.isFullResync());
+        assertEquals(List.of(), changes.getDeleted());
+        assertTrue(FollowedSyncToken.decode(changes.getWatermark()).floor() > floor);
+        verify(followedRepository, never()).findChangesByCreatedByAfter(any(), any(), any(), any());
+    }
+
+    @Test
+    void asksForAFullResyncWhenTombstonesMayBePurged() {
+        FollowedChanges changes = sync(FollowedSyncToken.start(System.currentTimeMillis() - 31 * DAY));
+
+        assertTrue(changes.isFullResync());
+        verifyNoInteractions(followedRepository, tombstoneRepository);
+    }
+
+    @Test
+    void refusesAMalformedWatermark() {
+        CustomAuthException ex = assertThrows(CustomAuthException.class,
+                () -> syncService.getChanges("bob", "not-a-watermark!"));
+
+        assertEquals(400, ex.getStatusCode());
+        verifyNoInteractions(followedRepository, tombstoneRepository);
+    }
+
+    @Test
+    void refusesAnUnknownUser() {
+        CustomAuthException ex = assertThrows(CustomAuthException.class,
+                () -> syncService.getChanges("alice", null));
+
+        assertEquals(404, ex.getStatusCode());
+        verifyNoInteractions(followedRepository, tombstoneRepository);
+    }
+
+    private FollowedChanges sync(FollowedSyncToken token) {
+        return syncService.getChanges("bob", token.encode());
+    }
+
+    private static FollowedView view(Long id, long updatedAt) {
+        return FollowedView.builder().id(id).name("Followed " + id).updatedAt(new Date(updatedAt)).version(0L)
+                .build();
+    }
+}
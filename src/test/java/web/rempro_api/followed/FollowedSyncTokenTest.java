@@ -0,0 +1,57 @@
+package web.rempro_api.followed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import web.rempro_api.utils.dto.FollowedView;
+import web.rempro_api.utils.exception.CustomAuthException;
+
+/**
+ * Checks that FollowedSyncToken decodes what it encodes, and refuses anything
+ * else with a 400.
+ */
+class FollowedSyncTokenTest {
+
+    @Test
+    void decodesARunStart() {
+        FollowedSyncToken token = FollowedSyncToken.decode(FollowedSyncToken.start(1_700_000_000_000L).encode());
+
+        assertTrue(token.isRunStart());
+        assertEquals(FollowedSyncToken.start(1_700_000_000_000L), token);
+    }
+
+    @Test
+    void decodesTheTokenOfANextPage() {
+        FollowedView last = FollowedView.builder().id(42L).updatedAt(new Date(1_700_000_123_456L)).build();
+
+        String encoded = FollowedSyncToken.after(1_700_000_000_000L, last).encode();
+        FollowedSyncToken token = FollowedSyncToken.decode(encoded);
+
+        assertFalse(token.isRunStart());
+        assertEquals(new FollowedSyncToken(1_700_000_000_000L, new Date(1_700_000_123_456L), 42L), token);
+        // Sent back in query strings as is
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "not base64!", "a:b", "1:2", "1:2:3:4", "1:2:x", "12.5" })
+    void refusesMalformedTokens(String raw) {
+        String token = raw.equals("not base64!") ? raw
+                : Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+
+        CustomAuthException ex = assertThrows(CustomAuthException.class, () -> FollowedSyncToken.decode(token));
+
+        assertEquals(400, ex.getStatusCode());
+        assertEquals("Invalid watermark: " + token, ex.getMessage());
+    }
+}
@@ -0,0 +1,68 @@
+package web.rempro_api.utils.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that BloomFilter never forgets an added key and keeps close to its
+ * false positive rate.
+ */
+class BloomFilterTest {
+
+    @Test
+    void answersPresentForEveryAddedKey() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            keys.add(UUID.randomUUID().toString());
+        }
+        // Twice the sized-for count: only the false positive rate may suffer
+        keys.forEach(filter::add);
+
+        for (String key : keys) {
+            assertTrue(filter.mightContain(key), key);
+        }
+    }
+
+    @Test
+    void answersPresentForEmptyAndNonAsciiKeys() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        filter.add("");
+        filter.add("jti-é-中");
+
+        assertTrue(filter.mightContain(""));
+        assertTrue(filter.mightContain("jti-é-中"));
+        assertFalse(filter.mightContain("jti-e-中"));
+    }
+
+    @Test
+    void keepsCloseToItsFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("revoked-" + i);
+        }
+
+        int falsePositives = 0;
+        int lookups = 100_000;
+        for (int i = 0; i < lookups; i++) {
+            if (filter.mightContain("valid-" + i)) {
+                falsePositives++;
+            }
+        }
+        // 1% expected; twice that leaves room for the hash, not for a broken one
+        assertTrue(falsePositives < lookups * 0.02, falsePositives + " false positives");
+    }
+
+    @Test
+    void answersAbsentWhenEmpty() {
+        BloomFilter filter = new BloomFilter(0, 0.01);
+
+        assertFalse(filter.mightContain("jti"));
+    }
+}
@@ -0,0 +1,144 @@
+package web.rempro_api.utils.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import web.rempro_api.auth.RevokedToken;
+import web.rempro_api.auth.RevokedTokenRepository;
+import web.rempro_api.utils.cache.CacheChange;
+import web.rempro_api.utils.cache.CacheInvalidationBus;
+
+/**
+ * Checks that TokenRevocationStore keeps its revocations across reloads,
+ * reloads after a gap of the cache bus, and forgets expired tokens when it
+ * purges.
+ */
+class TokenRevocationStoreTest {
+
+    private static final long HOUR = 3_600_000;
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+    private final CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private TokenRevocationStore store;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of());
+        store = newStore();
+    }
+
+    private TokenRevocationStore newStore() {
+        TokenRevocationStore created = new TokenRevocationStore(repository, bus, 1000, 0.01);
+        created.bindTo(registry);
+        return created;
+    }
+
+    @Test
+    void revokesStoresAndPublishes() {
+        Date expiration = new Date(System.currentTimeMillis() + HOUR);
+
+        store.revoke("jti-1", expiration);
+
+        assertTrue(store.isRevoked("jti-1"));
+        assertFalse(store.isRevoked("jti-2"));
+        assertFalse(store.isRevoked(null));
+        verify(repository).insert("jti-1", expiration);
+        verify(bus).publish(new CacheChange(CacheChange.Kind.TOKEN, "jti-1", List.of(expiration.getTime())));
+        assertEquals(1, registry.get("rempro.jwt.revoked.rejected").counter().count());
+    }
+
+    @Test
+    void ignoresTokensAlreadyExpired() {
+        store.revoke("jti-1", new Date(System.currentTimeMillis() - 1));
+        store.revoke(null, new Date(System.currentTimeMillis() + HOUR));
+
+        assertFalse(store.isRevoked("jti-1"));
+        verify(repository, never()).insert(any(), any());
+        verify(bus, never()).publish(any());
+    }
+
+    @Test
+    void keepsRevocationsAcrossLoads() {
+        Date expiration = new Date(System.currentTimeMillis() + HOUR);
+        store.revoke("jti-1", expiration);
+        ArgumentCaptor<Date> stored = ArgumentCaptor.forClass(Date.class);
+        verify(repository).insert(any(), stored.capture());
+
+        // A reload not seeing it yet adds to the revocations, it does not replace them
+        store.load();
+        assertTrue(store.isRevoked("jti-1"));
+
+        // A restarted node finds it in the table
+        when(repository.findByExpiresAtAfter(any()))
+                .thenReturn(List.of(new RevokedToken("jti-1", stored.getValue())));
+        TokenRevocationStore restarted = newStore();
+        assertFalse(restarted.isRevoked("jti-1"));
+        restarted.load();
+        assertTrue(restarted.isRevoked("jti-1"));
+    }
+
+    @Test
+    void reloadsOnceAfterAGap() {
+        store.reloadIfRequested();
+        verify(repository, never()).findByExpiresAtAfter(any());
+
+        // Revoked on another node while this one was not listening
+        when(repository.findByExpiresAtAfter(any()))
+                .thenReturn(List.of(new RevokedToken("missed", new Date(System.currentTimeMillis() + HOUR))));
+        store.onGap();
+        assertFalse(store.isRevoked("missed"));
+
+        store.reloadIfRequested();
+        assertTrue(store.isRevoked("missed"));
+        store.reloadIfRequested();
+        verify(repository, times(1)).findByExpiresAtAfter(any());
+    }
+
+    @Test
+    void addsTheRevocationsOfOtherNodes() {
+        long expiration = System.currentTimeMillis() + HOUR;
+
+        store.onRemoteChange(new CacheChange(CacheChange.Kind.USER, "bob", List.of()));
+        store.onRemoteChange(new CacheChange(CacheChange.Kind.TOKEN, "jti-1", List.of(expiration)));
+
+        assertTrue(store.isRevoked("jti-1"));
+        assertFalse(store.isRevoked("bob"));
+    }
+
+    @Test
+    void purgeDropsExpiredTokensFromTheFilter() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        store.onRemoteChange(new CacheChange(CacheChange.Kind.TOKEN, "expiring", List.of(now + 100)));
+        store.onRemoteChange(new CacheChange(CacheChange.Kind.TOKEN, "valid", List.of(now + HOUR)));
+        assertTrue(store.isRevoked("expiring"));
+        Thread.sleep(200);
+
+        // Expired, but still in the filter: looked up and counted as a false positive
+        assertFalse(store.isRevoked("expiring"));
+        assertEquals(1, registry.get("rempro.jwt.revoked.false-positives").counter().count());
+
+        store.purge();
+
+        verify(repository).deleteExpiredBefore(any());
+        assertFalse(store.isRevoked("expiring"));
+        assertEquals(1, registry.get("rempro.jwt.revoked.false-positives").counter().count());
+        assertTrue(store.isRevoked("valid"));
+    }
+}
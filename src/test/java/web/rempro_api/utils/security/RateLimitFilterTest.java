@@ -0,0 +1,112 @@
+package web.rempro_api.utils.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import web.rempro_api.utils.jwt.JwtService;
+
+/**
+ * Checks that RateLimitFilter finds the username of login requests whatever
+ * their declared length, and refuses bodies larger than credentials need.
+ */
+class RateLimitFilterTest {
+
+    // 2 attempts per username, 100 per IP
+    private final RateLimitFilter filter = new RateLimitFilter(mock(JwtService.class), new ObjectMapper(),
+            new SimpleMeterRegistry(), true, 1000, 2, Duration.ofMinutes(1), 100, Duration.ofMinutes(1),
+            100, Duration.ofSeconds(10));
+
+    @Test
+    void limitsChunkedLoginsPerUsername() throws Exception {
+        assertEquals(200, login(chunked(credentials("bob"))).getStatus());
+        assertEquals(200, login(chunked(credentials("Bob"))).getStatus());
+
+        MockHttpServletResponse refused = login(chunked(credentials("BOB")));
+        assertEquals(429, refused.getStatus());
+        // One attempt every 30 seconds once the burst is spent
+        assertEquals("30", refused.getHeader("Retry-After"));
+        // Other usernames keep their budget
+        assertEquals(200, login(chunked(credentials("alice"))).getStatus());
+    }
+
+    @Test
+    void limitsSizedLoginsPerUsername() throws Exception {
+        login(sized(credentials("bob")));
+        login(sized(credentials("bob")));
+
+        assertEquals(429, login(sized(credentials("bob"))).getStatus());
+    }
+
+    @Test
+    void passesTheBodyOnToTheController() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(chunked(credentials("bob")), new MockHttpServletResponse(), chain);
+
+        String body = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(credentials("bob"), body);
+    }
+
+    @Test
+    void refusesBodiesLargerThanCredentials() throws Exception {
+        String large = "{\"username\":\"bob\",\"password\":\"" + "x".repeat(5000) + "\"}";
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(chunked(large), response, chain);
+
+        assertEquals(413, response.getStatus());
+        assertNull(chain.getRequest());
+        assertEquals(413, login(sized(large)).getStatus());
+        // Nothing was counted against bob
+        assertEquals(200, login(sized(credentials("bob"))).getStatus());
+    }
+
+    private MockHttpServletResponse login(MockHttpServletRequest request) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static String credentials(String username) {
+        return "{\"username\":\"" + username + "\",\"password\":\"secret\"}";
+    }
+
+    private static MockHttpServletRequest sized(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    // Transfer-Encoding: chunked, no Content-Length
+    private static MockHttpServletRequest chunked(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+        };
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
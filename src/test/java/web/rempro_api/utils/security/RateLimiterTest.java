@@ -0,0 +1,113 @@
+package web.rempro_api.utils.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the GCRA arithmetic of RateLimiter on a clock moved by hand.
+ */
+class RateLimiterTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final AtomicLong clock = new AtomicLong(42 * SECOND);
+
+    // capacity requests at once, then one per second
+    private RateLimiter limiter(int capacity) {
+        return new RateLimiter(capacity, Duration.ofSeconds(capacity), 1000, clock::get);
+    }
+
+    @Test
+    void allowsABurstOfCapacityThenWaitsOneInterval() {
+        RateLimiter limiter = limiter(5);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("client"), "request " + i);
+        }
+        assertEquals(SECOND, limiter.tryAcquire("client"));
+        // Budgets are per client
+        assertEquals(0, limiter.tryAcquire("other"));
+    }
+
+    @Test
+    void sustainsCapacityPerPeriodOnceTheBurstIsSpent() {
+        RateLimiter limiter = limiter(5);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("client");
+        }
+
+        for (int second = 0; second < 10; second++) {
+            clock.addAndGet(SECOND);
+            assertEquals(0, limiter.tryAcquire("client"), "second " + second);
+            assertEquals(SECOND, limiter.tryAcquire("client"), "second " + second);
+        }
+    }
+
+    @Test
+    void returnsTheTimeUntilTheNextToken() {
+        RateLimiter limiter = limiter(5);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("client");
+        }
+
+        clock.addAndGet(SECOND * 4 / 10);
+        long wait = limiter.tryAcquire("client");
+        assertEquals(SECOND * 6 / 10, wait);
+        // Refused requests take no token
+        assertEquals(wait, limiter.tryAcquire("client"));
+
+        clock.addAndGet(wait - 1);
+        assertEquals(1, limiter.tryAcquire("client"));
+        clock.addAndGet(1);
+        assertEquals(0, limiter.tryAcquire("client"));
+    }
+
+    @Test
+    void evictsBucketsIdleForAWholePeriodWhichComeBackFull() {
+        RateLimiter limiter = limiter(5);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("idle");
+        }
+        clock.addAndGet(SECOND);
+        limiter.tryAcquire("active");
+        assertEquals(2, limiter.trackedKeys());
+
+        // A whole period after its last request, "idle" is full again and dropped
+        clock.addAndGet(4 * SECOND - 1);
+        assertEquals(2, limiter.trackedKeys());
+        clock.addAndGet(1);
+        assertEquals(1, limiter.trackedKeys());
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("idle"), "request " + i);
+        }
+        assertEquals(SECOND, limiter.tryAcquire("idle"));
+    }
+
+    @Test
+    void treatsAClockReadingOfLongMinValueAsAnyOther() {
+        clock.set(Long.MIN_VALUE);
+        RateLimiter limiter = limiter(1);
+
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(SECOND, limiter.tryAcquire("client"));
+    }
+
+    @Test
+    void doesNotRefillABucketWhoseNextArrivalWrapsOntoTheSentinel() {
+        // now + one interval overflows to exactly Long.MIN_VALUE
+        clock.set(Long.MAX_VALUE - SECOND + 1);
+        RateLimiter limiter = limiter(1);
+
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(SECOND + 1, limiter.tryAcquire("client"));
+
+        clock.addAndGet(SECOND + 1);
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(SECOND, limiter.tryAcquire("client"));
+    }
+}
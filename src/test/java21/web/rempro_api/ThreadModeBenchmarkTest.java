@@ -0,0 +1,234 @@
+package web.rempro_api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import web.rempro_api.followed.Followed;
+import web.rempro_api.followed.FollowedRepository;
+import web.rempro_api.users.Users;
+import web.rempro_api.users.UsersRepository;
+import web.rempro_api.utils.enums.LevelType;
+import web.rempro_api.utils.enums.Role;
+import web.rempro_api.utils.jwt.JwtService;
+
+/**
+ * Compares the application served by Tomcat's platform worker pool (200
+ * threads, as configured by default) and by one virtual thread per request.
+ * Each mode boots the whole application with the loadtest profile and the
+ * given pool size, seeds one user per client, and every client then updates
+ * one of its items and lists its items again, a read the update made miss the
+ * cache: the requests go through the security filters, the controllers and
+ * Hibernate down to a pooled JDBC connection.
+ *
+ * Opt-in, and only compiled by the java21 profile:
+ * mvn -Pjava21 test -Dtest=ThreadModeBenchmarkTest -Dbenchmark=true
+ *
+ * The loadtest profile runs on an in-memory H2 database, which answers
+ * without I/O: benchmark.db-url (with benchmark.db-username and
+ * benchmark.db-password) points the runs at a disposable PostgreSQL database
+ * instead, where requests really block on the network.
+ *
+ * Tunables (system properties): benchmark.concurrency (clients, 1000),
+ * benchmark.pool-size (connections, 50), benchmark.items (items per client,
+ * 20), benchmark.duration (seconds per mode, 10).
+ * The results are printed and written to target/benchmarks/thread-modes.txt.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ThreadModeBenchmarkTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 1000);
+    private static final int POOL_SIZE = Integer.getInteger("benchmark.pool-size", 50);
+    private static final int ITEMS = Integer.getInteger("benchmark.items", 20);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("benchmark.duration", 10));
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final String DB_URL = System.getProperty("benchmark.db-url");
+    private static final LevelType[] LEVEL_TYPES = LevelType.values();
+
+    @Test
+    void compareThreadModes() throws Exception {
+        Result platform = run("platform", false);
+        Result virtual = run("virtual", true);
+
+        String report = String.format(Locale.ROOT,
+                "clients=%d pool=%d items=%d database=%s duration=%ds%n%s%n%s%n",
+                CONCURRENCY, POOL_SIZE, ITEMS, DB_URL != null ? DB_URL : "h2", DURATION.toSeconds(),
+                platform, virtual);
+        System.out.print(report);
+        Path output = Path.of("target", "benchmarks", "thread-modes.txt");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, report);
+
+        assertEquals(0, platform.errors(), "platform mode had failed requests");
+        assertEquals(0, virtual.errors(), "virtual mode had failed requests");
+    }
+
+    private Result run(String mode, boolean virtualThreads) throws Exception {
+        // Command-line arguments, which take precedence over application-loadtest.yml
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE));
+        if (DB_URL != null) {
+            args.add("--spring.datasource.url=" + DB_URL);
+            args.add("--spring.datasource.username=" + System.getProperty("benchmark.db-username", ""));
+            args.add("--spring.datasource.password=" + System.getProperty("benchmark.db-password", ""));
+            // Detected from the URL
+            args.add("--spring.datasource.driver-class-name=");
+        } else {
+            // A fresh database per mode, so that both start from the same data
+            args.add("--spring.datasource.url=jdbc:h2:mem:bench-" + mode
+                    + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        }
+
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(RemproApiApplication.class)
+                .profiles("loadtest")
+                .run(args.toArray(String[]::new))) {
+            List<Client> clients = seed(app, mode);
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            load(port, clients, WARMUP);
+            return load(port, clients, DURATION).named(mode);
+        }
+    }
+
+    /**
+     * Creates one user per client, sharing one password hash, with their items,
+     * and signs them in without going through BCrypt.
+     */
+    private static List<Client> seed(ConfigurableApplicationContext app, String mode) {
+        UsersRepository usersRepository = app.getBean(UsersRepository.class);
+        FollowedRepository followedRepository = app.getBean(FollowedRepository.class);
+        JwtService jwtService = app.getBean(JwtService.class);
+        String hash = app.getBean(PasswordEncoder.class).encode("benchmark-password");
+
+        List<Client> clients = new ArrayList<>(CONCURRENCY);
+        for (int c = 0; c < CONCURRENCY; c++) {
+            // Named by mode, since a PostgreSQL database keeps the users of the previous run
+            Users user = usersRepository.save(Users.builder()
+                    .username("bench-" + mode + "-" + c + "@mail.com").password(hash).role(Role.USER).build());
+            List<Followed> items = new ArrayList<>(ITEMS);
+            for (int i = 0; i < ITEMS; i++) {
+                items.add(Followed.builder().name("Bench " + c + "-" + i).levelType(LEVEL_TYPES[i % LEVEL_TYPES.length])
+                        .levelNumber(1).episodeNumber(1).createdBy(user).build());
+            }
+            long[] ids = followedRepository.saveAll(items).stream().mapToLong(Followed::getId).toArray();
+            clients.add(new Client(jwtService.getToken(user), ids));
+        }
+        return clients;
+    }
+
+    private Result load(int port, List<Client> clients, Duration duration) throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        String base = "http://localhost:" + port;
+        AtomicLong errors = new AtomicLong();
+        List<long[]> latenciesPerClient = new ArrayList<>();
+        long end = System.nanoTime() + duration.toNanos();
+
+        try (ExecutorService runners = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Client client : clients) {
+                long[] latencies = new long[1 << 16];
+                latenciesPerClient.add(latencies);
+                runners.submit(() -> {
+                    int count = 0;
+                    while (System.nanoTime() < end && count < latencies.length - 2) {
+                        for (HttpRequest request : client.nextRequests(base)) {
+                            long start = System.nanoTime();
+                            try {
+                                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                                if (response.statusCode() != 200) {
+                                    errors.incrementAndGet();
+                                    continue;
+                                }
+                            } catch (IOException e) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                            latencies[++count] = System.nanoTime() - start;
+                        }
+                    }
+                    latencies[0] = count;
+                    return null;
+                });
+            }
+        }
+
+        int total = latenciesPerClient.stream().mapToInt(l -> (int) l[0]).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (long[] latencies : latenciesPerClient) {
+            int count = (int) latencies[0];
+            System.arraycopy(latencies, 1, all, offset, count);
+            offset += count;
+        }
+        Arrays.sort(all);
+        return new Result(null, total / (double) duration.toSeconds(),
+                percentile(all, 0.50), percentile(all, 0.99), errors.get());
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    /** One simulated user: updates one of its items, then lists them again. */
+    private record Client(String token, long[] items) {
+
+        List<HttpRequest> nextRequests(String base) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long id = items[random.nextInt(items.length)];
+            String body = "{\"name\":\"Bench " + id + "\",\"levelType\":\"" + LEVEL_TYPES[random.nextInt(LEVEL_TYPES.length)]
+                    + "\",\"levelNumber\":" + random.nextInt(1, 20) + ",\"episodeNumber\":" + random.nextInt(1, 50) + "}";
+            return List.of(
+                    request(base + "/followed/" + id)
+                            .header("Content-Type", "application/json")
+                            .PUT(HttpRequest.BodyPublishers.ofString(body))
+                            .build(),
+                    request(base + "/followed/user?size=50").GET().build());
+        }
+
+        private HttpRequest.Builder request(String uri) {
+            return HttpRequest.newBuilder(URI.create(uri)).header("Authorization", "Bearer " + token);
+        }
+    }
+
+    private record Result(String mode, double throughput, double p50Millis, double p99Millis, long errors) {
+
+        Result named(String mode) {
+            return new Result(mode, throughput, p50Millis, p99Millis, errors);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-8s %10.1f req/s  p50=%7.1fms  p99=%7.1fms  errors=%d",
+                    mode, throughput, p50Millis, p99Millis, errors);
+        }
+    }
+}